@@ -0,0 +1,222 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright (C) 2003 - 2013
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * --------------------------------------------------------------------- *
+ *
+ */
+package org.knime.knip.imagej1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+
+import org.knime.knip.imagej2.core.util.IJToImg;
+import org.knime.knip.imagej2.core.util.ImgToIJ;
+
+import ij.IJ;
+import ij.ImagePlus;
+import ij.WindowManager;
+import ij.macro.Interpreter;
+import ij.measure.ResultsTable;
+import ij.text.TextPanel;
+import net.imagej.ImgPlus;
+import net.imglib2.img.Img;
+import net.imglib2.img.ImgView;
+import net.imglib2.ops.operation.Operations;
+import net.imglib2.ops.operation.SubsetOperations;
+import net.imglib2.type.numeric.RealType;
+
+/**
+ * {@link IJMacroRuntime} running macros on the ImageJ1 instance of the class loader it has been loaded with. Not
+ * thread safe, all instances loaded by the same class loader share the static ImageJ1 state.
+ *
+ * @author <a href="mailto:dietzc85@googlemail.com">Christian Dietz</a>
+ * @author <a href="mailto:horn_martin@gmx.de">Martin Horn</a>
+ * @author <a href="mailto:michael.zinsmaier@googlemail.com">Michael Zinsmaier</a>
+ */
+public class DefaultIJMacroRuntime implements IJMacroRuntime {
+
+    private ImgPlus<? extends RealType<?>> m_resImg;
+
+    private ResultsTable m_resTable;
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Override
+    public void run(final String code, final ImgPlus<? extends RealType<?>> img, final boolean convertResultImage) {
+        Interpreter.batchMode = true;
+        m_resImg = null;
+        m_resTable = ResultsTable.getResultsTable();
+
+        // We fake a text panel as some result tables require one..
+        IJ.setTextPanel(new TextPanel("Dummy"));
+        final Interpreter inter = new Interpreter();
+        // Prepare images
+        final ImagePlus plus = ImgToIJ.wrap((ImgPlus)img);
+        plus.setTitle(img.getName());
+        Interpreter.addBatchModeImage(plus);
+        WindowManager.setTempCurrentImage(plus);
+        m_resTable.reset();
+
+        try {
+            // This must be the run method with two string
+            // arguments
+            inter.run(code, "");
+
+            final ImagePlus resPlus = convertResultImage ? Interpreter.getLastBatchModeImage() : null;
+            if (resPlus != null) {
+                // If the image was only modified,
+                // truncate to the same
+                // dimensionality
+                Img res = (Img)Operations.compute(new IJToImg(IJToImg.createMatchingType(resPlus), false, 5), resPlus);
+
+                final Img<? extends RealType<?>> cleanRes =
+                        new ImgView(SubsetOperations.subsetview(res, res), img.factory());
+
+                if (cleanRes.numDimensions() == img.numDimensions()) {
+                    // If the image was only
+                    // modified and it holds meta
+                    // data, drag them along
+                    m_resImg = new ImgPlus(cleanRes, img);
+                } else {
+                    m_resImg = new ImgPlus(cleanRes);
+                }
+            }
+
+            m_resTable = ResultsTable.getResultsTable();
+        } finally {
+            // Clean up
+            while (WindowManager.getImageCount() > 0) {
+                final ImagePlus current = WindowManager.getCurrentImage();
+                Interpreter.removeBatchModeImage(current);
+                current.close();
+            }
+            WindowManager.closeAllWindows();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ImgPlus<? extends RealType<?>> resImgPlus() {
+        return m_resImg;
+    }
+
+    /**
+     * @return {@link ResultsTable} of the last run, only valid as long as no other macro is run by the ImageJ1
+     *         instance of this class loader
+     */
+    public ResultsTable resTable() {
+        return m_resTable;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] resTableColumns() {
+        if (m_resTable == null) {
+            return null;
+        }
+        final StringTokenizer tk = new StringTokenizer(m_resTable.getColumnHeadings(), "\t");
+        final List<String> columns = new ArrayList<>(tk.countTokens());
+        while (tk.hasMoreTokens()) {
+            final String token = tk.nextToken().trim();
+            if (token.length() > 0) {
+                columns.add(token);
+            }
+        }
+        return columns.toArray(new String[columns.size()]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[][] resTableValues() {
+        final String[] columns = resTableColumns();
+        if (columns == null) {
+            return null;
+        }
+        final double[][] values = new double[columns.length][m_resTable.getCounter()];
+        for (int c = 0; c < columns.length; c++) {
+            final int idx = m_resTable.getColumnIndex(columns[c]);
+            for (int r = 0; r < values[c].length; r++) {
+                values[c][r] = idx == ResultsTable.COLUMN_NOT_FOUND ? Double.NaN
+                        : m_resTable.getValueAsDouble(idx, r);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[][] resTableStrings() {
+        final String[] columns = resTableColumns();
+        if (columns == null) {
+            return null;
+        }
+        final String[][] strings = new String[columns.length][m_resTable.getCounter()];
+        for (int c = 0; c < columns.length; c++) {
+            for (int r = 0; r < strings[c].length; r++) {
+                strings[c][r] = m_resTable.getStringValue(columns[c], r);
+            }
+        }
+        return strings;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String errorMessage() {
+        return IJ.getErrorMessage();
+    }
+}
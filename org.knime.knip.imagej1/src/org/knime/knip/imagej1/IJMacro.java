@@ -48,23 +48,18 @@
  */
 package org.knime.knip.imagej1;
 
-import org.knime.knip.imagej2.core.util.IJToImg;
-import org.knime.knip.imagej2.core.util.ImgToIJ;
+import org.knime.knip.base.exceptions.KNIPRuntimeException;
+import org.knime.knip.imagej2.core.util.ExecutionMetrics;
 
 import ij.IJ;
-import ij.ImagePlus;
-import ij.WindowManager;
-import ij.macro.Interpreter;
 import ij.measure.ResultsTable;
-import ij.text.TextPanel;
 import net.imagej.ImgPlus;
-import net.imglib2.img.Img;
-import net.imglib2.img.ImgView;
-import net.imglib2.ops.operation.Operations;
-import net.imglib2.ops.operation.SubsetOperations;
 import net.imglib2.type.numeric.RealType;
 
 /**
+ * Runs an ImageJ1 macro either on the global ImageJ1 instance, which is locked for the whole run, or on an isolated
+ * runtime of the {@link IsolatedIJMacroRuntimePool}, such that several macros can run at the same time. The phases of
+ * a run are recorded in the {@link ExecutionMetrics} set with {@link #setExecutionMetrics(ExecutionMetrics)}.
  *
  * @author <a href="mailto:dietzc85@googlemail.com">Christian Dietz</a>
  * @author <a href="mailto:horn_martin@gmx.de">Martin Horn</a>
@@ -73,75 +68,197 @@ import net.imglib2.type.numeric.RealType;
  */
 public class IJMacro<T extends RealType<T>> {
 
+    /** phase of waiting for the global ImageJ1 instance or an isolated runtime. */
+    static final String PHASE_RUNTIME_ACQUISITION = "runtime_acquisition";
+
+    /** phase of running the macro including the conversion of the input and the result image. */
+    static final String PHASE_MACRO_EXECUTION = "macro_execution";
+
+    /** phase of rebuilding the results table marshalled by an isolated runtime. */
+    static final String PHASE_RESULT_TRANSFER = "result_transfer";
+
     // private final String m_ijDirectory;
     private final String m_code;
 
+    private final boolean m_isolated;
+
+    private final boolean m_resultImage;
+
+    private final DefaultIJMacroRuntime m_globalRuntime;
+
     private ImgPlus<? extends RealType<?>> m_resImg;
 
     private ResultsTable m_resTable;
 
+    private String m_errorMessage;
+
+    private ExecutionMetrics m_metrics = ExecutionMetrics.DISABLED;
+
     /**
+     * Creates a macro running on the global ImageJ1 instance.
+     *
      * @param code
      */
     public IJMacro(final String code) {
+        this(code, false);
+    }
+
+    /**
+     * Creates the macro.
+     *
+     * @param code
+     * @param isolated if true, the macro runs on an isolated runtime instead of the global ImageJ1 instance
+     */
+    public IJMacro(final String code, final boolean isolated) {
+        this(code, isolated, true);
+    }
+
+    /**
+     * Creates the macro.
+     *
+     * @param code
+     * @param isolated if true, the macro runs on an isolated runtime instead of the global ImageJ1 instance
+     * @param resultImage if false, the image produced by the macro is not converted back and {@link #resImgPlus()}
+     *            stays <code>null</code>, only the {@link ResultsTable} is available
+     */
+    public IJMacro(final String code, final boolean isolated, final boolean resultImage) {
         m_code = code;
-        Interpreter.batchMode = true;
+        m_isolated = isolated;
+        m_resultImage = resultImage;
+        if (isolated) {
+            m_globalRuntime = null;
+        } else {
+            m_globalRuntime = new DefaultIJMacroRuntime();
+        }
+    }
+
+    /**
+     * @param metrics the metrics the phases of the runs are recorded in
+     */
+    public final void setExecutionMetrics(final ExecutionMetrics metrics) {
+        m_metrics = metrics;
     }
 
     /**
      * @param img
      */
-    @SuppressWarnings({"rawtypes", "unchecked"})
     public final void run(final ImgPlus<T> img) {
+        final Result result = new Result();
+        try {
+            run(img, result);
+        } finally {
+            m_errorMessage = result.m_errorMessage;
+        }
+        if (result.m_resImg != null) {
+            m_resImg = result.m_resImg;
+        }
+        m_resTable = result.m_resTable;
+    }
 
-        m_resTable = ResultsTable.getResultsTable();
-
-        // We fake a text panel as some result tables require one..
-
-        // TODO Run different ImageJ instances?
-        synchronized (m_resTable) {
-            IJ.setTextPanel(new TextPanel("Dummy"));
-            final Interpreter inter = new Interpreter();
-            // Prepare images
-            final ImagePlus plus = ImgToIJ.wrap(img);
-            plus.setTitle(img.getName());
-            Interpreter.addBatchModeImage(plus);
-            WindowManager.setTempCurrentImage(plus);
-            m_resTable.reset();
-
-            // This must be the run method with two string
-            // arguments
-            inter.run(m_code, "");
-
-            final ImagePlus resPlus = Interpreter.getLastBatchModeImage();
-            if (resPlus != null) {
-                // If the image was only modified,
-                // truncate to the same
-                // dimensionality
-                Img res = (Img)Operations.compute(new IJToImg(IJToImg.createMatchingType(resPlus), false, 5), resPlus);
-
-                final Img<? extends RealType<?>> cleanRes =
-                        new ImgView(SubsetOperations.subsetview(res, res), img.factory());
-
-                if (cleanRes.numDimensions() == img.numDimensions()) {
-                    // If the image was only
-                    // modified and it holds meta
-                    // data, drag them along
-                    m_resImg = new ImgPlus(cleanRes, img);
-                } else {
-                    m_resImg = new ImgPlus(cleanRes);
-                }
+    /**
+     * Runs the macro and stores the outputs in the given result instead of this instance. Isolated macros can be run
+     * concurrently this way, each run takes its own runtime from the pool.
+     *
+     * @param img
+     * @param result receives the outputs of this run, the error message is set even if the run fails
+     */
+    final void run(final ImgPlus<T> img, final Result result) {
+        if (m_isolated) {
+            runIsolated(img, result);
+        } else {
+            runGlobal(img, result);
+        }
+    }
+
+    /**
+     * @return true if the macro runs on isolated runtimes
+     */
+    final boolean isIsolated() {
+        return m_isolated;
+    }
+
+    private void runGlobal(final ImgPlus<T> img, final Result result) {
+        long startNanos = m_metrics.now();
+        long startBytes = m_metrics.allocatedBytes();
+        // the global results table guards the static state of the global ImageJ1 instance
+        synchronized (ResultsTable.getResultsTable()) {
+            m_metrics.add(PHASE_RUNTIME_ACQUISITION, startNanos, startBytes);
+            startNanos = m_metrics.now();
+            startBytes = m_metrics.allocatedBytes();
+            try {
+                m_globalRuntime.run(m_code, img, m_resultImage);
+            } finally {
+                result.m_errorMessage = IJ.getErrorMessage();
             }
+            m_metrics.add(PHASE_MACRO_EXECUTION, startNanos, startBytes);
+            result.m_resImg = m_globalRuntime.resImgPlus();
+            result.m_resTable = m_globalRuntime.resTable();
+        }
+    }
+
+    private void runIsolated(final ImgPlus<T> img, final Result result) {
+        final IsolatedIJMacroRuntimePool pool = IsolatedIJMacroRuntimePool.getInstance();
+        final IJMacroRuntime runtime;
+        long startNanos = m_metrics.now();
+        long startBytes = m_metrics.allocatedBytes();
+        try {
+            runtime = pool.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KNIPRuntimeException("Interrupted while waiting for an ImageJ1 macro runtime.", e);
+        }
+        m_metrics.add(PHASE_RUNTIME_ACQUISITION, startNanos, startBytes);
+
+        try {
+            startNanos = m_metrics.now();
+            startBytes = m_metrics.allocatedBytes();
+            try {
+                runtime.run(m_code, img, m_resultImage);
+            } finally {
+                result.m_errorMessage = runtime.errorMessage();
+            }
+            m_metrics.add(PHASE_MACRO_EXECUTION, startNanos, startBytes);
+
+            startNanos = m_metrics.now();
+            startBytes = m_metrics.allocatedBytes();
+            result.m_resImg = runtime.resImgPlus();
+            result.m_resTable = toResultsTable(runtime.resTableColumns(), runtime.resTableValues(),
+                                               runtime.resTableStrings());
+            m_metrics.add(PHASE_RESULT_TRANSFER, startNanos, startBytes);
+        } finally {
+            pool.release(runtime);
+        }
+    }
 
-             m_resTable = ResultsTable.getResultsTable();
-            // Clean up
-            while (WindowManager.getImageCount() > 0) {
-                final ImagePlus current = WindowManager.getCurrentImage();
-                Interpreter.removeBatchModeImage(current);
-                current.close();
+    /**
+     * Rebuilds a results table marshalled by an isolated runtime as a new, non-global {@link ResultsTable}.
+     */
+    private static ResultsTable toResultsTable(final String[] columns, final double[][] values,
+                                               final String[][] strings) {
+        if (columns == null) {
+            return null;
+        }
+        final ResultsTable table = new ResultsTable();
+        final int numRows = columns.length == 0 ? 0 : values[0].length;
+        for (int r = 0; r < numRows; r++) {
+            table.incrementCounter();
+        }
+        for (int c = 0; c < columns.length; c++) {
+            if ("Label".equals(columns[c])) {
+                for (int r = 0; r < numRows; r++) {
+                    table.setLabel(strings[c][r], r);
+                }
+                continue;
+            }
+            // numeric values are set column wise, only non numeric entries are set one by one
+            table.setValues(columns[c], values[c]);
+            for (int r = 0; r < numRows; r++) {
+                if (Double.isNaN(values[c][r]) && strings[c][r] != null && !"NaN".equals(strings[c][r])) {
+                    table.setValue(columns[c], r, strings[c][r]);
+                }
             }
-            WindowManager.closeAllWindows();
         }
+        return table;
     }
 
     /**
@@ -157,4 +274,44 @@ public class IJMacro<T extends RealType<T>> {
     public final ResultsTable resTable() {
         return m_resTable;
     }
+
+    /**
+     * @return the ImageJ1 error message of the last run
+     */
+    public final String errorMessage() {
+        return m_errorMessage;
+    }
+
+    /**
+     * Outputs of a single run, see {@link IJMacro#run(ImgPlus, Result)}.
+     */
+    static final class Result {
+
+        private ImgPlus<? extends RealType<?>> m_resImg;
+
+        private ResultsTable m_resTable;
+
+        private String m_errorMessage;
+
+        /**
+         * @return the result {@link ImgPlus}, null if the macro did not produce an image
+         */
+        ImgPlus<? extends RealType<?>> resImgPlus() {
+            return m_resImg;
+        }
+
+        /**
+         * @return the {@link ResultsTable} of the run
+         */
+        ResultsTable resTable() {
+            return m_resTable;
+        }
+
+        /**
+         * @return the ImageJ1 error message of the run
+         */
+        String errorMessage() {
+            return m_errorMessage;
+        }
+    }
 }
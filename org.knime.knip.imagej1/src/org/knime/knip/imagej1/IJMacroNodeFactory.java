@@ -48,27 +48,33 @@
  */
 package org.knime.knip.imagej1;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
-import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.StringCell;
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeFactory;
 import org.knime.core.node.NodeLogger;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.NotConfigurableException;
 import org.knime.core.node.defaultnodesettings.DialogComponent;
 import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
@@ -78,6 +84,14 @@ import org.knime.core.node.defaultnodesettings.SettingsModelString;
 import org.knime.core.node.port.PortObject;
 import org.knime.core.node.port.PortObjectSpec;
 import org.knime.core.node.port.PortType;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.workflow.NodeContext;
+import org.knime.knip.base.KNIPConstants;
 import org.knime.knip.base.data.img.ImgPlusCell;
 import org.knime.knip.base.data.img.ImgPlusCellFactory;
 import org.knime.knip.base.data.img.ImgPlusValue;
@@ -92,6 +106,7 @@ import org.knime.knip.base.node.nodesettings.SettingsModelDimSelection;
 import org.knime.knip.base.node.nodesettings.SettingsModelSerializableObjects;
 import org.knime.knip.base.nodes.io.kernel.DialogComponentSerializableConfiguration;
 import org.knime.knip.base.nodes.io.kernel.SerializableSetting;
+import org.knime.knip.core.ThreadPoolExecutorService;
 import org.knime.knip.core.data.img.DefaultImgMetadata;
 import org.knime.knip.core.util.MinimaUtils;
 import org.knime.knip.imagej1.macro.AnalyzeParticlesIJMacro;
@@ -109,19 +124,21 @@ import org.knime.knip.imagej1.macro.SkeletonizeIJMacro;
 import org.knime.knip.imagej1.macro.SubstractBackgroundIJMacro;
 import org.knime.knip.imagej1.macro.WatershedIJMacro;
 import org.knime.knip.imagej1.prefs.IJ1Preferences;
+import org.knime.knip.imagej2.core.util.ExecutionMetrics;
 import org.knime.knip.imagej2.core.util.UntransformableIJTypeException;
 import org.knime.node2012.KnimeNodeDocument.KnimeNode;
 
-import ij.IJ;
 import ij.measure.ResultsTable;
 import net.imagej.ImgPlus;
 import net.imagej.ImgPlusMetadata;
 import net.imglib2.Interval;
+import net.imglib2.IterableInterval;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.img.ImgView;
 import net.imglib2.ops.operation.SubsetOperations;
 import net.imglib2.ops.operation.iterableinterval.unary.IterableIntervalCopy;
 import net.imglib2.ops.util.MetadataUtil;
+import net.imglib2.type.NativeType;
 import net.imglib2.type.numeric.RealType;
 import net.imglib2.view.Views;
 
@@ -155,6 +172,30 @@ public class IJMacroNodeFactory<T extends RealType<T>> extends
         return new SettingsModelBoolean("resulttable_entries_as_string", false);
     }
 
+    private static final String CFG_PARALLEL_INTERVALS = "parallel_intervals";
+
+    private static SettingsModelBoolean createParallelIntervalsModel() {
+        return new SettingsModelBoolean(CFG_PARALLEL_INTERVALS, false);
+    }
+
+    private static final String CFG_RESULT_TABLE_ONLY = "result_table_only";
+
+    private static final String CFG_COLLECT_METRICS = "collect_execution_metrics";
+
+    /** phase of converting the results table of a macro run to rows of the result table. */
+    private static final String PHASE_RESULT_TABLE_CONVERSION = "result_table_conversion";
+
+    /** phase of writing the result image cell. */
+    private static final String PHASE_CELL_CREATION = "cell_creation";
+
+    private static SettingsModelBoolean createCollectMetricsModel() {
+        return new SettingsModelBoolean(CFG_COLLECT_METRICS, false);
+    }
+
+    private static SettingsModelBoolean createResultTableOnlyModel() {
+        return new SettingsModelBoolean(CFG_RESULT_TABLE_ONLY, false);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -178,10 +219,32 @@ public class IJMacroNodeFactory<T extends RealType<T>> extends
 
             private BufferedDataContainer m_resTableContainer;
 
+            /** converts the ResultsTables of the macro, created with the spec of the first one. */
+            private ResultsTableConverter m_resTableConverter;
+
+            /**
+             * receives the result table rows during streamed execution, null otherwise. The port is not distributed,
+             * hence there is only one operator setting it.
+             */
+            private RowOutput m_resTableOutput;
+
             private String m_currentRowKey;
 
             private ExecutionContext m_exec;
 
+            private final SettingsModelBoolean m_parallelIntervals = createParallelIntervalsModel();
+
+            private boolean m_concurrentIntervals;
+
+            private final SettingsModelBoolean m_resultTableOnly = createResultTableOnlyModel();
+
+            private ExecutorService m_intervalExecutor;
+
+            private final SettingsModelBoolean m_collectMetrics = createCollectMetricsModel();
+
+            /** metrics of the last execution, registered as MXBean until the node is reset. */
+            private ExecutionMetrics m_metrics = ExecutionMetrics.DISABLED;
+
             private NodeLogger log = NodeLogger.getLogger(IJMacroNodeFactory.class);
 
             /**
@@ -199,14 +262,70 @@ public class IJMacroNodeFactory<T extends RealType<T>> extends
             @Override
             protected PortObject[] execute(final PortObject[] inObjects, final ExecutionContext exec) throws Exception {
                 final PortObject firstPort = super.execute(inObjects, exec)[0];
-                PortObject secondPort = null;
+                final PortObject secondPort = closeResultTable(exec);
+
+                if (m_metrics.isEnabled()) {
+                    log.info(m_metrics);
+                    for (final Map.Entry<String, Double> metric : m_metrics.getSummary().entrySet()) {
+                        pushFlowVariableDouble(ExecutionMetrics.FLOW_VARIABLE_PREFIX + metric.getKey(),
+                                               metric.getValue());
+                    }
+                }
+                return new PortObject[]{firstPort, secondPort};
+
+            }
+
+            private BufferedDataTable closeResultTable(final ExecutionContext exec) {
                 if (m_resTableContainer == null) {
                     m_resTableContainer = exec.createDataContainer(new DataTableSpec());
                 }
                 m_resTableContainer.close();
-                secondPort = m_resTableContainer.getTable();
-                return new PortObject[]{firstPort, secondPort};
+                return m_resTableContainer.getTable();
+            }
 
+            /**
+             * The spec of the result table is only known once the first ResultsTable has been created by the macro,
+             * hence the result table port is not distributed and has no spec before execution.
+             */
+            @Override
+            public OutputPortRole[] getOutputPortRoles() {
+                return new OutputPortRole[]{super.getOutputPortRoles()[0], OutputPortRole.NONDISTRIBUTED};
+            }
+
+            /**
+             * Streams the image rows with the operator of the value to cell model and pushes the result table rows
+             * to the second port as soon as they have been converted.
+             */
+            @Override
+            public StreamableOperator createStreamableOperator(final PartitionInfo partitionInfo,
+                                                               final PortObjectSpec[] inSpecs)
+                    throws InvalidSettingsException {
+                final StreamableOperator imgOperator = super.createStreamableOperator(partitionInfo, inSpecs);
+                return new StreamableOperator() {
+
+                    @Override
+                    public void runFinal(final PortInput[] inputs, final PortOutput[] outputs,
+                                         final ExecutionContext exec) throws Exception {
+                        m_resTableOutput = (RowOutput)outputs[1];
+                        try {
+                            imgOperator.runFinal(inputs, new PortOutput[]{outputs[0]}, exec);
+                            m_resTableOutput.close();
+                            if (m_metrics.isEnabled()) {
+                                log.info(m_metrics);
+                            }
+                        } finally {
+                            m_resTableOutput = null;
+                        }
+                    }
+                };
+            }
+
+            private void addResultTableRow(final DataRow row) throws InterruptedException {
+                if (m_resTableOutput != null) {
+                    m_resTableOutput.push(row);
+                } else {
+                    m_resTableContainer.addRowToTable(row);
+                }
             }
 
             @Override
@@ -223,11 +342,34 @@ public class IJMacroNodeFactory<T extends RealType<T>> extends
                     m_flowVarCode.setStringValue("");
                 }
 
-                m_macro = new IJMacro<>(code);
+                m_macro = new IJMacro<>(code, IJ1Preferences.getNumIsolatedRuntimes() > 0,
+                        !m_resultTableOnly.getBooleanValue());
+
+                m_metrics.unregister();
+                if (m_collectMetrics.getBooleanValue()) {
+                    final NodeContext context = NodeContext.getContext();
+                    m_metrics = ExecutionMetrics.register(context != null && context.getNodeContainer() != null
+                            ? context.getNodeContainer().getNameWithID() : "ImageJ Macro");
+                } else {
+                    m_metrics = ExecutionMetrics.DISABLED;
+                }
+                m_macro.setExecutionMetrics(m_metrics);
+
+                // intervals can only be processed concurrently if each of them gets its own runtime
+                m_concurrentIntervals = m_parallelIntervals.getBooleanValue() && m_macro.isIsolated();
+                if (m_concurrentIntervals && m_intervalExecutor == null) {
+                    m_intervalExecutor = new ThreadPoolExecutorService(
+                            KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(KNIPConstants.THREADS_PER_NODE));
+                } else if (m_parallelIntervals.getBooleanValue() && !m_macro.isIsolated()) {
+                    setWarningMessage("Intervals are processed one after the other, parallel processing requires"
+                            + " isolated macro runtimes (see ImageJ1 preferences).");
+                }
+
                 m_imgCellFactory = new ImgPlusCellFactory(exec);
 
                 m_exec = exec;
                 m_resTableContainer = null;
+                m_resTableConverter = null;
 
                 System.setProperty("plugins.dir", IJ1Preferences.getIJ1PluginPath());
             }
@@ -253,14 +395,12 @@ public class IJMacroNodeFactory<T extends RealType<T>> extends
             @SuppressWarnings("unchecked")
             @Override
             protected ImgPlusCell compute(final ImgPlusValue cellValue) throws Exception {
+                final long rowStartNanos = m_metrics.now();
 
                 final ImgPlus img = MinimaUtils.getZeroMinImgPlus(cellValue.getImgPlus());
 
                 final Interval[] intervals = m_dimSelection.getIntervals(img, img);
                 final int[] m_selectedDims = m_dimSelection.getSelectedDimIndices(img);
-                final IterableIntervalCopy copyOp = new IterableIntervalCopy();
-
-                ImgPlus res = null;
 
                 if (m_selectedDims.length < 2) {
                     throw new KNIPException(
@@ -268,94 +408,233 @@ public class IJMacroNodeFactory<T extends RealType<T>> extends
                                     + cellValue.getMetadata().getName() + ". MissingCell is created.");
                 }
 
-                long[] min = new long[img.numDimensions()];
+                if (m_concurrentIntervals && intervals.length > 1) {
+                    final ImgPlus res = computeIntervalsConcurrently(img, intervals, m_selectedDims);
+                    return createOutputCell(cellValue, res, rowStartNanos);
+                }
+
+                final IterableIntervalCopy copyOp = new IterableIntervalCopy();
+
+                ImgPlus res = null;
+
                 for (final Interval interval : intervals) {
+                    final long[] min = new long[img.numDimensions()];
                     interval.min(min);
 
-                    RandomAccessibleInterval subsetview = SubsetOperations.subsetview(img.getImg(), interval);
-                    ImgPlusMetadata meta = MetadataUtil
-                            .copyAndCleanImgPlusMetadata(interval, img,
-                                                         new DefaultImgMetadata(subsetview.numDimensions()));
-
                     try {
-                        ImgPlus<T> imgPlus = new ImgPlus<T>(ImgView.wrap(subsetview, img.factory()), meta);
-                        m_macro.run(imgPlus);
-                    } catch (UntransformableIJTypeException e) {
-                        throw new KNIPRuntimeException(e.getMessage(), e);
-                    } catch (KNIPRuntimeException e) {
-                        throw e;
+                        m_macro.run(createIntervalImgPlus(img, interval));
                     } catch (Exception e) {
-                        log.warn("ImageJ Macro Error: " + IJ.getErrorMessage());
-                        throw new KNIPRuntimeException(
-                                "The specified macro has thrown an error while execution. Make sure that the used plugins are available in the selected IJ1 plugin folder! See KNIME Log for details!",
-                                e);
+                        throw macroFailure(e, m_macro.errorMessage());
                     }
 
-                    if (res == null && intervals.length > 1) {
-                        final long[] dims = new long[img.numDimensions()];
-                        img.dimensions(dims);
-                        for (int i = 0; i < m_selectedDims.length; i++) {
-                            dims[m_selectedDims[i]] = m_macro.resImgPlus().dimension(i);
+                    if (!m_resultTableOnly.getBooleanValue()) {
+                        if (res == null && intervals.length > 1) {
+                            res = createResultImgPlus(img, m_selectedDims, m_macro.resImgPlus());
                         }
-                        res = new ImgPlus(
-                                img.factory().create(dims, m_macro.resImgPlus().firstElement().createVariable()), img);
-                        res.setSource(img.getSource());
-                    }
 
-                    if (intervals.length > 1) {
-                        copyOp.compute(m_macro.resImgPlus(), Views
-                                .iterable((RandomAccessibleInterval<T>)SubsetOperations.subsetview(res, interval)));
-                    } else {
-                        res = m_macro.resImgPlus();
-                        res.setSource(img.getSource());
+                        if (intervals.length > 1) {
+                            copyOp.compute(m_macro.resImgPlus(), Views.iterable(
+                                    (RandomAccessibleInterval<T>)SubsetOperations.subsetview(res, interval)));
+                        } else {
+                            res = m_macro.resImgPlus();
+                            res.setSource(img.getSource());
+                        }
                     }
 
                     // fill result table if available
                     if (m_macro.resTable() != null) {
-                        if (m_resTableContainer == null) {
-                            final DataTableSpec spec = createResultTableSpec(m_macro.resTable());
-                            if (spec != null) {
-                                m_resTableContainer = m_exec.createDataContainer(spec);
-                            } else {
-                                m_resTableContainer = null;
-                            }
-                        }
-                        if (m_resTableContainer != null) {
-                            final int numCols = m_resTableContainer.getTableSpec().getNumColumns();
-                            final int[] colIndices = new int[numCols];
-                            for (int i = 0; i < colIndices.length; i++) {
-                                colIndices[i] = m_macro.resTable()
-                                        .getColumnIndex(m_resTableContainer.getTableSpec().getColumnSpec(i).getName());
-                            }
-                            for (int r = 0; r < m_macro.resTable().getCounter(); r++) {
-                                final DataCell[] cells;
-                                if (!m_resultTableEntriesAsString.getBooleanValue()) {
-                                    cells = new DoubleCell[numCols];
-                                    for (int c = 0; c < cells.length; c++) {
-                                        cells[c] =
-                                                new DoubleCell(m_macro.resTable().getValueAsDouble(colIndices[c], r));
-                                    }
-                                } else {
-                                    cells = new StringCell[numCols];
-                                    for (int c = 0; c < cells.length; c++) {
-                                        cells[c] = new StringCell(m_macro.resTable().getStringValue(colIndices[c], r));
-                                    }
+                        addResultTableRows(m_macro.resTable(), min, intervals.length > 1);
+                    }
+                }
+
+                return createOutputCell(cellValue, res, rowStartNanos);
+            }
+
+            /**
+             * Creates the output cell of a row and records the row in the execution metrics.
+             */
+            @SuppressWarnings("unchecked")
+            private ImgPlusCell createOutputCell(final ImgPlusValue cellValue, final ImgPlus res,
+                                                 final long rowStartNanos) throws IOException {
+                final long startNanos = m_metrics.now();
+                final long startBytes = m_metrics.allocatedBytes();
+                final ImgPlusCell cell =
+                        m_resultTableOnly.getBooleanValue() ? inputCell(cellValue) : m_imgCellFactory.createCell(res);
+                m_metrics.add(PHASE_CELL_CREATION, startNanos, startBytes);
+                m_metrics.addRow(rowStartNanos);
+                return cell;
+            }
+
+            /**
+             * The unmodified input image, used if only the result table is of interest. An existing cell is reused,
+             * such that no image data is written.
+             */
+            @SuppressWarnings("unchecked")
+            private ImgPlusCell inputCell(final ImgPlusValue cellValue) throws IOException {
+                if (cellValue instanceof ImgPlusCell) {
+                    return (ImgPlusCell)cellValue;
+                }
+                return m_imgCellFactory.createCell(cellValue.getImgPlus());
+            }
+
+            /**
+             * Runs the macro for all intervals on isolated runtimes. The first interval is processed on the calling
+             * thread to allocate the result, all others are processed concurrently and write their result into their
+             * own, disjoint subset of it. The result table rows are added in the order of the intervals.
+             *
+             * @return the result image, null if only the result table is created
+             */
+            @SuppressWarnings("unchecked")
+            private ImgPlus computeIntervalsConcurrently(final ImgPlus img, final Interval[] intervals,
+                                                        final int[] selectedDims)
+                    throws Exception {
+                final IJMacro.Result first = runInterval(img, intervals[0]);
+                final ImgPlus res;
+                final boolean sharedStorage;
+                if (m_resultTableOnly.getBooleanValue()) {
+                    res = null;
+                    sharedStorage = false;
+                } else {
+                    res = createResultImgPlus(img, selectedDims, first.resImgPlus());
+                    // packed types (e.g. bits) may share their storage between neighbouring intervals
+                    sharedStorage = ((NativeType<?>)res.firstElement()).getEntitiesPerPixel().getRatio() < 1;
+                    copyIntervalResult(first, res, intervals[0], sharedStorage);
+                }
+
+                final List<Future<IJMacro.Result>> futures = new ArrayList<>(intervals.length - 1);
+                try {
+                    for (int i = 1; i < intervals.length; i++) {
+                        final Interval interval = intervals[i];
+                        futures.add(m_intervalExecutor.submit(new Callable<IJMacro.Result>() {
+                            @Override
+                            public IJMacro.Result call() throws Exception {
+                                final IJMacro.Result result = runInterval(img, interval);
+                                if (res != null) {
+                                    copyIntervalResult(result, res, interval, sharedStorage);
                                 }
+                                return result;
+                            }
+                        }));
+                    }
 
-                                String rowKey;
-                                if (intervals.length > 1) {
-                                    rowKey = m_currentRowKey + "#" + Arrays.toString(min) + "#" + r;
-                                } else {
-                                    rowKey = m_currentRowKey + "#" + r;
+                    for (int i = 0; i < intervals.length; i++) {
+                        final IJMacro.Result result;
+                        if (i == 0) {
+                            result = first;
+                        } else {
+                            try {
+                                result = futures.get(i - 1).get();
+                            } catch (final ExecutionException e) {
+                                if (e.getCause() instanceof Exception) {
+                                    throw (Exception)e.getCause();
                                 }
-                                m_resTableContainer.addRowToTable(new DefaultRow(rowKey, cells));
+                                throw e;
                             }
                         }
 
+                        if (result.resTable() != null) {
+                            final long[] min = new long[img.numDimensions()];
+                            intervals[i].min(min);
+                            addResultTableRows(result.resTable(), min, true);
+                        }
                     }
+                } finally {
+                    // no-op for finished intervals
+                    for (final Future<IJMacro.Result> future : futures) {
+                        future.cancel(true);
+                    }
+                }
+
+                return res;
+            }
+
+            @SuppressWarnings("unchecked")
+            private IJMacro.Result runInterval(final ImgPlus img, final Interval interval) {
+                final IJMacro.Result result = new IJMacro.Result();
+                try {
+                    m_macro.run(createIntervalImgPlus(img, interval), result);
+                } catch (Exception e) {
+                    throw macroFailure(e, result.errorMessage());
+                }
+                if (result.resImgPlus() == null && !m_resultTableOnly.getBooleanValue()) {
+                    throw new KNIPRuntimeException("The specified macro did not produce an image for Img "
+                            + img.getName() + ".");
                 }
+                return result;
+            }
 
-                return m_imgCellFactory.createCell(res);
+            @SuppressWarnings("unchecked")
+            private void copyIntervalResult(final IJMacro.Result result, final ImgPlus res, final Interval interval,
+                                            final boolean sharedStorage) {
+                final IterableInterval<T> target =
+                        Views.iterable((RandomAccessibleInterval<T>)SubsetOperations.subsetview(res, interval));
+                if (sharedStorage) {
+                    synchronized (res) {
+                        new IterableIntervalCopy().compute(result.resImgPlus(), target);
+                    }
+                } else {
+                    new IterableIntervalCopy().compute(result.resImgPlus(), target);
+                }
+            }
+
+            @SuppressWarnings("unchecked")
+            private ImgPlus<T> createIntervalImgPlus(final ImgPlus img, final Interval interval) {
+                RandomAccessibleInterval subsetview = SubsetOperations.subsetview(img.getImg(), interval);
+                ImgPlusMetadata meta = MetadataUtil
+                        .copyAndCleanImgPlusMetadata(interval, img, new DefaultImgMetadata(subsetview.numDimensions()));
+                return new ImgPlus<T>(ImgView.wrap(subsetview, img.factory()), meta);
+            }
+
+            /**
+             * allocates the result of all intervals, sized by the result of the first interval.
+             */
+            @SuppressWarnings("unchecked")
+            private ImgPlus createResultImgPlus(final ImgPlus img, final int[] selectedDims,
+                                                final ImgPlus<? extends RealType<?>> intervalRes) {
+                final long[] dims = new long[img.numDimensions()];
+                img.dimensions(dims);
+                for (int i = 0; i < selectedDims.length; i++) {
+                    dims[selectedDims[i]] = intervalRes.dimension(i);
+                }
+                final ImgPlus res =
+                        new ImgPlus(img.factory().create(dims, intervalRes.firstElement().createVariable()), img);
+                res.setSource(img.getSource());
+                return res;
+            }
+
+            private RuntimeException macroFailure(final Exception e, final String errorMessage) {
+                if (e instanceof UntransformableIJTypeException) {
+                    return new KNIPRuntimeException(e.getMessage(), e);
+                } else if (e instanceof KNIPRuntimeException) {
+                    return (KNIPRuntimeException)e;
+                }
+                log.warn("ImageJ Macro Error: " + errorMessage);
+                return new KNIPRuntimeException(
+                        "The specified macro has thrown an error while execution. Make sure that the used plugins are available in the selected IJ1 plugin folder! See KNIME Log for details!",
+                        e);
+            }
+
+            private void addResultTableRows(final ResultsTable table, final long[] min,
+                                            final boolean multipleIntervals)
+                    throws InterruptedException {
+                if (m_resTableConverter == null) {
+                    m_resTableConverter = new ResultsTableConverter(createResultTableSpec(table),
+                            m_resultTableEntriesAsString.getBooleanValue());
+                    if (m_resTableOutput == null) {
+                        m_resTableContainer = m_exec.createDataContainer(m_resTableConverter.getSpec());
+                    }
+                }
+
+                final String rowKeyPrefix;
+                if (multipleIntervals) {
+                    rowKeyPrefix = m_currentRowKey + "#" + Arrays.toString(min) + "#";
+                } else {
+                    rowKeyPrefix = m_currentRowKey + "#";
+                }
+                final long startNanos = m_metrics.now();
+                final long startBytes = m_metrics.allocatedBytes();
+                m_resTableConverter.convert(table, rowKeyPrefix, this::addResultTableRow);
+                m_metrics.add(PHASE_RESULT_TABLE_CONVERSION, startNanos, startBytes);
             }
 
             /**
@@ -366,6 +645,78 @@ public class IJMacroNodeFactory<T extends RealType<T>> extends
                 m_currentRowKey = row.getKey().toString();
             }
 
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            protected void saveSettingsTo(final NodeSettingsWO settings) {
+                super.saveSettingsTo(settings);
+                m_parallelIntervals.saveSettingsTo(settings);
+                m_resultTableOnly.saveSettingsTo(settings);
+                m_collectMetrics.saveSettingsTo(settings);
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            protected void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+                super.validateSettings(settings);
+                // not available in workflows of older versions
+                if (settings.containsKey(CFG_PARALLEL_INTERVALS)) {
+                    m_parallelIntervals.validateSettings(settings);
+                }
+                if (settings.containsKey(CFG_RESULT_TABLE_ONLY)) {
+                    m_resultTableOnly.validateSettings(settings);
+                }
+                if (settings.containsKey(CFG_COLLECT_METRICS)) {
+                    m_collectMetrics.validateSettings(settings);
+                }
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+                super.loadValidatedSettingsFrom(settings);
+                if (settings.containsKey(CFG_PARALLEL_INTERVALS)) {
+                    m_parallelIntervals.loadSettingsFrom(settings);
+                } else {
+                    m_parallelIntervals.setBooleanValue(false);
+                }
+                if (settings.containsKey(CFG_RESULT_TABLE_ONLY)) {
+                    m_resultTableOnly.loadSettingsFrom(settings);
+                } else {
+                    m_resultTableOnly.setBooleanValue(false);
+                }
+                if (settings.containsKey(CFG_COLLECT_METRICS)) {
+                    m_collectMetrics.loadSettingsFrom(settings);
+                } else {
+                    m_collectMetrics.setBooleanValue(false);
+                }
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            protected void reset() {
+                super.reset();
+                m_metrics.unregister();
+                m_metrics = ExecutionMetrics.DISABLED;
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            protected void onDispose() {
+                super.onDispose();
+                m_metrics.unregister();
+                m_metrics = ExecutionMetrics.DISABLED;
+            }
+
             @Override
             protected void addSettingsModels(final List<SettingsModel> settingsModels) {
                 settingsModels.add(m_macroSelection);
@@ -438,6 +789,15 @@ public class IJMacroNodeFactory<T extends RealType<T>> extends
 
                 addDialogComponent("Additional Options", "Result Table", new DialogComponentBoolean(
                         createResultTableEntriesAsStringModel(), "Return result table entries as strings"));
+                addDialogComponent("Additional Options", "Result Table", new DialogComponentBoolean(
+                        createResultTableOnlyModel(),
+                        "Only create the result table (the input image is returned unmodified)"));
+                addDialogComponent("Additional Options", "Execution", new DialogComponentBoolean(
+                        createParallelIntervalsModel(),
+                        "Process the intervals of an image in parallel (requires isolated macro runtimes)"));
+                addDialogComponent("Additional Options", "Execution", new DialogComponentBoolean(
+                        createCollectMetricsModel(), "Collect execution metrics (flow variables \""
+                                + ExecutionMetrics.FLOW_VARIABLE_PREFIX + "*\" and JMX)"));
             }
         };
     }
@@ -0,0 +1,106 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright (C) 2003 - 2013
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * --------------------------------------------------------------------- *
+ *
+ */
+package org.knime.knip.imagej1;
+
+import net.imagej.ImgPlus;
+import net.imglib2.type.numeric.RealType;
+
+/**
+ * Executes ImageJ1 macros. The interface only exposes types which are shared by all class loaders, such that
+ * implementations can be loaded in an isolated class loader holding its own ImageJ1 static state (see
+ * {@link IsolatedIJMacroRuntimePool}). The results table is therefore exposed column-wise as primitive arrays.
+ */
+public interface IJMacroRuntime {
+
+    /**
+     * Runs the macro on the given image.
+     *
+     * @param code the macro code
+     * @param img the input image
+     */
+    default void run(final String code, final ImgPlus<? extends RealType<?>> img) {
+        run(code, img, true);
+    }
+
+    /**
+     * Runs the macro on the given image.
+     *
+     * @param code the macro code
+     * @param img the input image
+     * @param convertResultImage if false, the last batch mode image is not converted back and {@link #resImgPlus()}
+     *            returns <code>null</code>, e.g. if only the results table of the macro is of interest
+     */
+    void run(String code, ImgPlus<? extends RealType<?>> img, boolean convertResultImage);
+
+    /**
+     * @return the last batch mode image of the last run, converted to an {@link ImgPlus}, or <code>null</code> if
+     *         the macro didn't produce an image
+     */
+    ImgPlus<? extends RealType<?>> resImgPlus();
+
+    /**
+     * @return the column headings of the results table of the last run, <code>null</code> if no table is available
+     */
+    String[] resTableColumns();
+
+    /**
+     * @return the numeric values of the results table of the last run, indexed by [column][row]
+     */
+    double[][] resTableValues();
+
+    /**
+     * @return the string values of the results table of the last run, indexed by [column][row]
+     */
+    String[][] resTableStrings();
+
+    /**
+     * @return the last ImageJ1 error message
+     */
+    String errorMessage();
+}
@@ -0,0 +1,221 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright (C) 2003 - 2013
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * --------------------------------------------------------------------- *
+ *
+ */
+package org.knime.knip.imagej1;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.knime.knip.base.exceptions.KNIPRuntimeException;
+import org.knime.knip.imagej1.prefs.IJ1Preferences;
+import org.knime.knip.imagej2.core.util.DefaultImgToIJ1Converter;
+import org.knime.knip.imagej2.core.util.DefaultProcessorFactory;
+import org.knime.knip.imagej2.core.util.IJToImg;
+import org.knime.knip.imagej2.core.util.ImagePlusAnalysis;
+import org.knime.knip.imagej2.core.util.ImagePlusWrapper;
+import org.knime.knip.imagej2.core.util.ImageProcessorFactory;
+import org.knime.knip.imagej2.core.util.ImgToIJ;
+
+/**
+ * Pool of {@link IJMacroRuntime}s, each loaded by its own {@link IsolatingClassLoader} and hence holding its own
+ * ImageJ1 static state (results table, batch mode images, window manager, interpreter). Macros running on different
+ * runtimes of this pool do not interfere and don't need to be synchronized. The number of runtimes is bounded by
+ * {@link IJ1Preferences#getNumIsolatedRuntimes()}.
+ */
+final class IsolatedIJMacroRuntimePool {
+
+    private static IsolatedIJMacroRuntimePool m_instance;
+
+    private final BlockingQueue<IJMacroRuntime> m_idle = new LinkedBlockingQueue<>();
+
+    private int m_numCreated = 0;
+
+    private IsolatedIJMacroRuntimePool() {
+        // singleton
+    }
+
+    /**
+     * @return the process-wide pool
+     */
+    static synchronized IsolatedIJMacroRuntimePool getInstance() {
+        if (m_instance == null) {
+            m_instance = new IsolatedIJMacroRuntimePool();
+        }
+        return m_instance;
+    }
+
+    /**
+     * Takes an idle runtime from the pool, creates a new one if the pool is not exhausted or waits until a runtime is
+     * released. The runtime must be given back with {@link #release(IJMacroRuntime)}.
+     *
+     * @return a runtime exclusively used by the caller
+     * @throws InterruptedException if interrupted while waiting for a runtime
+     */
+    IJMacroRuntime acquire() throws InterruptedException {
+        final IJMacroRuntime idle = m_idle.poll();
+        if (idle != null) {
+            return idle;
+        }
+
+        synchronized (this) {
+            if (m_numCreated < Math.max(1, IJ1Preferences.getNumIsolatedRuntimes())) {
+                m_numCreated++;
+                try {
+                    return createRuntime();
+                } catch (final RuntimeException e) {
+                    m_numCreated--;
+                    throw e;
+                }
+            }
+        }
+
+        return m_idle.take();
+    }
+
+    /**
+     * @param runtime the runtime to give back to the pool
+     */
+    void release(final IJMacroRuntime runtime) {
+        m_idle.offer(runtime);
+    }
+
+    private static IJMacroRuntime createRuntime() {
+        final ClassLoader loader = new IsolatingClassLoader(IsolatedIJMacroRuntimePool.class.getClassLoader());
+        try {
+            return (IJMacroRuntime)loader.loadClass(DefaultIJMacroRuntime.class.getName()).getDeclaredConstructor()
+                    .newInstance();
+        } catch (final ReflectiveOperationException e) {
+            throw new KNIPRuntimeException("Can't create isolated ImageJ1 macro runtime.", e);
+        }
+    }
+
+    /**
+     * Child-first class loader defining ImageJ1 and all classes directly accessing ImageJ1 itself. All other classes
+     * (ImgLib2, KNIME, the {@link IJMacroRuntime} interface) are loaded by the parent and thus shared.
+     */
+    static final class IsolatingClassLoader extends ClassLoader {
+
+        private static final String[] ISOLATED_PACKAGES = new String[]{"ij.", "mpicbg."};
+
+        /**
+         * classes accessing ImageJ1, including their nested and anonymous classes. The remaining classes of their
+         * packages (e.g. the public ConversionScheduler, whose pool is shared by all runtimes) are loaded by the parent.
+         */
+        private static final String[] ISOLATED_CLASSES = new String[]{DefaultIJMacroRuntime.class.getName(),
+                DefaultImgToIJ1Converter.class.getName(), DefaultProcessorFactory.class.getName(),
+                IJToImg.class.getName(), ImagePlusAnalysis.class.getName(), ImagePlusWrapper.class.getName(),
+                ImageProcessorFactory.class.getName(), ImgToIJ.class.getName()};
+
+        static {
+            registerAsParallelCapable();
+        }
+
+        IsolatingClassLoader(final ClassLoader parent) {
+            super(parent);
+        }
+
+        private static boolean isIsolated(final String name) {
+            for (final String prefix : ISOLATED_PACKAGES) {
+                if (name.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            for (final String isolated : ISOLATED_CLASSES) {
+                if (name.equals(isolated) || name.startsWith(isolated + "$")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+            if (!isIsolated(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null) {
+                    c = findClass(name);
+                }
+                if (resolve) {
+                    resolveClass(c);
+                }
+                return c;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected Class<?> findClass(final String name) throws ClassNotFoundException {
+            try (final InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                if (in == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                final byte[] buf = new byte[8192];
+                int read;
+                while ((read = in.read(buf)) != -1) {
+                    out.write(buf, 0, read);
+                }
+                final byte[] bytes = out.toByteArray();
+                return defineClass(name, bytes, 0, bytes.length);
+            } catch (final IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright (C) 2003 - 2013
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * --------------------------------------------------------------------- *
+ *
+ */
+package org.knime.knip.imagej1;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.StringCell;
+
+import ij.measure.ResultsTable;
+
+/**
+ * Converts the rows of {@link ResultsTable}s into {@link DataRow}s of a fixed {@link DataTableSpec}. Numeric columns
+ * are read column wise from the table, the cell buffer and the row key builder are reused for all rows. Instances are
+ * not thread safe.
+ */
+final class ResultsTableConverter {
+
+    /**
+     * Receives the converted rows.
+     */
+    interface RowSink {
+        /**
+         * @param row the converted row
+         * @throws InterruptedException if the consumer was interrupted
+         */
+        void add(DataRow row) throws InterruptedException;
+    }
+
+    private final DataTableSpec m_spec;
+
+    private final boolean m_asString;
+
+    private final DataCell[] m_cells;
+
+    private final StringBuilder m_rowKey = new StringBuilder();
+
+    // column indices of the last converted table, reused as long as the headings don't change
+    private String m_headings;
+
+    private int[] m_colIndices;
+
+    /**
+     * @param spec the spec of the created rows, the column names are looked up in the converted tables
+     * @param asString true to create {@link StringCell}s, {@link DoubleCell}s otherwise
+     */
+    ResultsTableConverter(final DataTableSpec spec, final boolean asString) {
+        m_spec = spec;
+        m_asString = asString;
+        m_cells = new DataCell[spec.getNumColumns()];
+    }
+
+    /**
+     * @return the spec of the created rows
+     */
+    DataTableSpec getSpec() {
+        return m_spec;
+    }
+
+    /**
+     * Converts all rows of the given table. The key of each row is the given prefix followed by the row index.
+     *
+     * @param table the table to convert
+     * @param rowKeyPrefix prefix of the row keys
+     * @param sink receives the rows in table order
+     * @throws InterruptedException if the sink was interrupted
+     */
+    void convert(final ResultsTable table, final String rowKeyPrefix, final RowSink sink)
+            throws InterruptedException {
+        final int numRows = table.getCounter();
+        if (numRows == 0) {
+            return;
+        }
+
+        final int[] colIndices = columnIndices(table);
+        final double[][] values = m_asString ? null : new double[colIndices.length][];
+        if (values != null) {
+            for (int c = 0; c < colIndices.length; c++) {
+                // columns which can't be read as a whole (e.g. the label column) are read value by value
+                if (colIndices[c] != ResultsTable.COLUMN_NOT_FOUND) {
+                    values[c] = table.getColumnAsDoubles(colIndices[c]);
+                }
+            }
+        }
+
+        m_rowKey.setLength(0);
+        m_rowKey.append(rowKeyPrefix);
+        final int prefixLength = m_rowKey.length();
+
+        for (int r = 0; r < numRows; r++) {
+            for (int c = 0; c < m_cells.length; c++) {
+                if (m_asString) {
+                    m_cells[c] = new StringCell(table.getStringValue(colIndices[c], r));
+                } else if (values[c] != null) {
+                    m_cells[c] = new DoubleCell(values[c][r]);
+                } else {
+                    m_cells[c] = new DoubleCell(table.getValueAsDouble(colIndices[c], r));
+                }
+            }
+
+            m_rowKey.setLength(prefixLength);
+            m_rowKey.append(r);
+            // the row copies the cells, the buffer can be refilled
+            sink.add(new DefaultRow(m_rowKey.toString(), m_cells));
+        }
+    }
+
+    private int[] columnIndices(final ResultsTable table) {
+        final String headings = table.getColumnHeadings();
+        if (!headings.equals(m_headings)) {
+            final int[] colIndices = new int[m_cells.length];
+            for (int c = 0; c < colIndices.length; c++) {
+                colIndices[c] = table.getColumnIndex(m_spec.getColumnSpec(c).getName());
+            }
+            m_colIndices = colIndices;
+            m_headings = headings;
+        }
+        return m_colIndices;
+    }
+}
@@ -49,6 +49,7 @@
 package org.knime.knip.imagej1.io;
 
 import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
 import org.knime.core.node.defaultnodesettings.SettingsModelStringArray;
 import org.knime.knip.io.node.dialog.DialogComponentMultiFileChooser;
 import org.knime.knip.io.nodes.imgreader.ImgReaderNodeDialog;
@@ -79,6 +80,11 @@ public class IJImageReaderNodeDialog extends DefaultNodeSettingsPane {
         addDialogComponent(m_filechooser);
         this.closeCurrentGroup();
 
+        this.createNewGroup("Performance");
+        addDialogComponent(new DialogComponentNumber(IJImageReaderNodeModel.createPrefetchDepthModel(),
+                "Number of files read ahead (0 = read one after the other)", 1));
+        this.closeCurrentGroup();
+
     }
 
 }
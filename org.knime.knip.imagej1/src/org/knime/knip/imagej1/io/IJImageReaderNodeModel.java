@@ -63,6 +63,7 @@ import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.defaultnodesettings.SettingsModel;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelStringArray;
 
 /**
@@ -85,12 +86,31 @@ public class IJImageReaderNodeModel extends NodeModel {
 	 */
 	public static final String CFG_DIR_HISTORY = "imagereader_dirhistory";
 
+	/**
+	 * Key for the settings holding the number of files read ahead.
+	 */
+	public static final String CFG_PREFETCH_DEPTH = "prefetch_depth";
+
+	/**
+	 * @return settings model for the number of files read ahead of the row
+	 *         being written
+	 */
+	static SettingsModelIntegerBounded createPrefetchDepthModel() {
+		return new SettingsModelIntegerBounded(CFG_PREFETCH_DEPTH, 4, 0, 64);
+	}
+
 	/*
 	 * Settings for the file list.
 	 */
 	private final SettingsModelStringArray m_files = new SettingsModelStringArray(
 			CFG_FILE_LIST, new String[] {});
 
+	/*
+	 * Settings for the number of files read ahead, not part of the settings
+	 * collection as it is missing in workflows of older versions.
+	 */
+	private final SettingsModelIntegerBounded m_prefetchDepth = createPrefetchDepthModel();
+
 	/*
 	 * Collection of all settings.
 	 */
@@ -156,10 +176,16 @@ public class IJImageReaderNodeModel extends NodeModel {
 
 		// String[] metaDataColumns =
 		// m_metadatakeys.getStringArrayValue();
-		final IJReadFileImageTable dt = new IJReadFileImageTable(exec, fnames);
+		final IJReadFileImageTable dt = new IJReadFileImageTable(exec, fnames,
+				m_prefetchDepth.getIntValue());
 		// dt.setDimLabelProperty(m_planeSelect.getDimLabelsAsString());
-		final BufferedDataTable[] out = new BufferedDataTable[] { exec
-				.createBufferedDataTable(dt, exec) };
+		final BufferedDataTable[] out;
+		try {
+			out = new BufferedDataTable[] { exec.createBufferedDataTable(dt,
+					exec) };
+		} finally {
+			dt.close();
+		}
 		if (dt.hasAnErrorOccured()) {
 			setWarningMessage("Some errors occured opening images or image planes!");
 		}
@@ -175,6 +201,7 @@ public class IJImageReaderNodeModel extends NodeModel {
 		for (final SettingsModel sm : m_settingsCollection) {
 			sm.saveSettingsTo(settings);
 		}
+		m_prefetchDepth.saveSettingsTo(settings);
 
 	}
 
@@ -187,6 +214,9 @@ public class IJImageReaderNodeModel extends NodeModel {
 		for (final SettingsModel sm : m_settingsCollection) {
 			sm.validateSettings(settings);
 		}
+		if (settings.containsKey(CFG_PREFETCH_DEPTH)) {
+			m_prefetchDepth.validateSettings(settings);
+		}
 	}
 
 	/**
@@ -198,6 +228,12 @@ public class IJImageReaderNodeModel extends NodeModel {
 		for (final SettingsModel sm : m_settingsCollection) {
 			sm.loadSettingsFrom(settings);
 		}
+		if (settings.containsKey(CFG_PREFETCH_DEPTH)) {
+			m_prefetchDepth.loadSettingsFrom(settings);
+		} else {
+			// files are read on demand, as before
+			m_prefetchDepth.setIntValue(0);
+		}
 	}
 
 	/**
@@ -49,22 +49,18 @@
 package org.knime.knip.imagej1.io;
 
 import ij.ImagePlus;
-import ij.process.ByteProcessor;
-import ij.process.ImageProcessor;
-import ij.process.ShortProcessor;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import net.imagej.ImgPlus;
-import net.imagej.axis.Axes;
-import net.imagej.axis.AxisType;
-import net.imglib2.img.Img;
-import net.imglib2.img.planar.PlanarImg;
-import net.imglib2.img.planar.PlanarImgFactory;
 import net.imglib2.type.numeric.RealType;
-import net.imglib2.type.numeric.integer.ByteType;
-import net.imglib2.type.numeric.integer.ShortType;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
@@ -77,9 +73,12 @@ import org.knime.core.data.RowIterator;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.knip.base.data.img.ImgPlusCell;
 import org.knime.knip.base.data.img.ImgPlusCellFactory;
+import org.knime.knip.core.ThreadPoolExecutorService;
+import org.knime.knip.imagej2.core.util.ImagePlusWrapper;
 
 /**
  * Implements a <code>DataTable</code> that read image data from files.
@@ -125,6 +124,24 @@ public class IJReadFileImageTable implements DataTable {
 
     private ImgPlusCellFactory m_imgCellFactory;
 
+    /*
+     * Number of files which are read ahead of the current row, 0 to read
+     * them on demand.
+     */
+    private int m_prefetchDepth;
+
+    /*
+     * Reads the files ahead of the current row, in file list order.
+     */
+    private ExecutorService m_prefetchExecutor;
+
+    private final Deque<Future<ImgPlus<? extends RealType<?>>>> m_prefetched = new ArrayDeque<>();
+
+    /*
+     * Index of the next file to submit to the prefetch executor.
+     */
+    private int m_nextPrefetchIdx;
+
     /**
      * Creates an new and empty ImageTable and is useful to get the table specification without actually knowing the
      * content.
@@ -140,10 +157,27 @@ public class IJReadFileImageTable implements DataTable {
      * @param filelist
      */
     public IJReadFileImageTable(final ExecutionContext exec, final String[] filelist) {
+        this(exec, filelist, 0);
+    }
+
+    /**
+     * Constructor for an ImageTable which reads the next files on worker threads while the current row is processed.
+     * The rows are returned in the order of the file list. {@link #close()} has to be called after the iteration.
+     *
+     * @param exec
+     * @param filelist
+     * @param prefetchDepth number of files read ahead of the current row, 0 to read them on demand
+     */
+    public IJReadFileImageTable(final ExecutionContext exec, final String[] filelist, final int prefetchDepth) {
 
         m_fileReferences = filelist;
         m_exec = exec;
         m_imgCellFactory = new ImgPlusCellFactory(exec);
+        m_prefetchDepth = prefetchDepth;
+        if (prefetchDepth > 0) {
+            m_prefetchExecutor = new ThreadPoolExecutorService(
+                    KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(prefetchDepth));
+        }
 
     }
 
@@ -170,6 +204,64 @@ public class IJReadFileImageTable implements DataTable {
         return m_numErrors > 0;
     }
 
+    /**
+     * Cancels the files which have been read ahead but not been returned, e.g. if the iteration was canceled.
+     */
+    public void close() {
+        for (final Future<?> f : m_prefetched) {
+            f.cancel(true);
+        }
+        m_prefetched.clear();
+    }
+
+    /*
+     * Opens the given file, null if it can't be opened.
+     */
+    private ImgPlus<? extends RealType<?>> read(final String file) {
+        final ImagePlus ijImagePlus = new ImagePlus(file);
+        if (ijImagePlus.getProcessor() == null) {
+            LOGGER.error("Can not open the file " + file);
+            return null;
+        }
+        try {
+            // all planes of the stack are wrapped, the ImagePlus is not used afterwards
+            return ImagePlusWrapper.wrap(ijImagePlus, file);
+        } catch (final IllegalArgumentException e) {
+            LOGGER.error("Can not open the file " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /*
+     * Returns the image of the current file from the prefetch queue, after
+     * the following files up to the prefetch depth have been submitted.
+     */
+    private ImgPlus<? extends RealType<?>> nextPrefetched() {
+        while (m_nextPrefetchIdx < m_fileReferences.length && m_nextPrefetchIdx <= m_idx + m_prefetchDepth) {
+            final String file = m_fileReferences[m_nextPrefetchIdx++];
+            m_prefetched.add(m_prefetchExecutor.submit(new Callable<ImgPlus<? extends RealType<?>>>() {
+                @Override
+                public ImgPlus<? extends RealType<?>> call() {
+                    return read(file);
+                }
+            }));
+        }
+
+        try {
+            return m_prefetched.poll().get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new RuntimeException("Reading " + m_fileReferences[m_idx] + " was interrupted.", e);
+        } catch (final ExecutionException e) {
+            close();
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -178,6 +270,8 @@ public class IJReadFileImageTable implements DataTable {
 
         m_idx = 0;
         m_numErrors = 0;
+        close();
+        m_nextPrefetchIdx = 0;
 
         return new RowIterator() {
 
@@ -186,7 +280,7 @@ public class IJReadFileImageTable implements DataTable {
                 return m_idx < m_fileReferences.length;
             }
 
-            @SuppressWarnings({"unchecked", "rawtypes", "null"})
+            @SuppressWarnings({"unchecked", "rawtypes"})
             @Override
             public DataRow next() {
                 String rowHeaderName = STANDARD_ROW_PREFIX;
@@ -199,48 +293,17 @@ public class IJReadFileImageTable implements DataTable {
                 rowHeaderName = m_fileReferences[m_idx];
                 final DataCell[] result = new DataCell[1];
 
-                final ImagePlus ijImagePlus = new ImagePlus(m_fileReferences[m_idx]);
-
-                // read image(s)
-                final int[] srcDims = ijImagePlus.getDimensions();
-
-                final AxisType[] labels = new AxisType[srcDims.length];
-                labels[0] = Axes.get("X");
-                labels[1] = Axes.get("Y");
-                // if (labels.length > 1)
-                // labels[2] = Axes.CHANNEL;
-                // for (int i = 3; i < labels.length; i++) {
-                // labels[i] = Axes.UNKNOWN;
-                // }
+                final ImgPlus img = m_prefetchDepth > 0 ? nextPrefetched() : read(m_fileReferences[m_idx]);
 
-                Img<? extends RealType<?>> resImg = null;
-
-                final ImageProcessor ip = ijImagePlus.getProcessor();
-                if (ip == null) {
-                    LOGGER.error("Can not open the file " + m_fileReferences[m_idx]);
+                if (img == null) {
                     m_numErrors++;
-
                 } else {
-                    final Object pixels = ip.getPixels();
-                    if (ip instanceof ByteProcessor) {
-                        resImg = new PlanarImgFactory().create(new int[]{srcDims[0], srcDims[1]}, new ByteType());
-                    } else if (ip instanceof ShortProcessor) {
-                        resImg = new PlanarImgFactory().create(new int[]{srcDims[0], srcDims[1]}, new ShortType());
-
-                    } else {
-                        LOGGER.error("Can not open the file " + m_fileReferences[m_idx]);
-                        m_numErrors++;
-                    }
-                    System.arraycopy(pixels, 0, ((PlanarImg)resImg).getPlane(0).getCurrentStorageArray(), 0,
-                                     ip.getPixelCount());
-
                     try {
-                        result[0] = m_imgCellFactory.createCell(new ImgPlus(resImg, m_fileReferences[m_idx], labels));
+                        result[0] = m_imgCellFactory.createCell(img);
                     } catch (final IOException e) {
                         LOGGER.error("Error creating ImgPlusCell.", e);
                         result[0] = DataType.getMissingCell();
                     }
-
                 }
 
                 for (final DataCell cell : result) {
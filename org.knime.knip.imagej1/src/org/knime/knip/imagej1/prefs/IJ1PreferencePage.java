@@ -51,6 +51,7 @@ package org.knime.knip.imagej1.prefs;
 
 import org.eclipse.jface.preference.DirectoryFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.ui.IWorkbench;
@@ -84,6 +85,13 @@ public class IJ1PreferencePage extends FieldEditorPreferencePage implements IWor
                 "ImageJ1 plugins will be loaded from the specified directory.\nNOTE: If changed, some default macros (e.g. CLAHE) in the ImageJ Macro node may not work anymore, if the required plugins cannot be found in the specified plugin directory."));
         addField(new DirectoryFieldEditor(IJ1Preferences.P_PLUGIN_DIR_PATH, "ImageJ1 plugin directory", new Composite(
                 parent, SWT.None)));
+        addField(new LabelField(
+                parent,
+                "ImageJ1 macros run on one global ImageJ1 instance, one macro at a time. If set to a number greater than 0,\nmacros run concurrently on up to this many isolated ImageJ1 instances, each with its own results table."));
+        final IntegerFieldEditor numRuntimes = new IntegerFieldEditor(IJ1Preferences.P_NUM_ISOLATED_RUNTIMES,
+                "Number of isolated ImageJ1 macro runtimes", new Composite(parent, SWT.None));
+        numRuntimes.setValidRange(0, 256);
+        addField(numRuntimes);
     }
 
     /**
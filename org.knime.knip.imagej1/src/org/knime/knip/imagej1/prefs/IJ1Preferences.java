@@ -60,6 +60,8 @@ public class IJ1Preferences {
 
     static final String P_PLUGIN_DIR_PATH = "plugin_directory_path";
 
+    static final String P_NUM_ISOLATED_RUNTIMES = "num_isolated_macro_runtimes";
+
     private IJ1Preferences() {
         //utility class
     }
@@ -71,4 +73,12 @@ public class IJ1Preferences {
         return KNIMEIMAGEJPlugin.getDefault().getPreferenceStore().getString(P_PLUGIN_DIR_PATH);
     }
 
+    /**
+     * @return number of isolated ImageJ1 runtimes macros may run on concurrently, 0 if all macros run on the global
+     *         ImageJ1 instance one after another
+     */
+    public static int getNumIsolatedRuntimes() {
+        return KNIMEIMAGEJPlugin.getDefault().getPreferenceStore().getInt(P_NUM_ISOLATED_RUNTIMES);
+    }
+
 }
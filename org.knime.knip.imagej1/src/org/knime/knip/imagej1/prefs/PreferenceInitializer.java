@@ -82,6 +82,7 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
             path = "";
         }
         store.setDefault(IJ1Preferences.P_PLUGIN_DIR_PATH, path);
+        store.setDefault(IJ1Preferences.P_NUM_ISOLATED_RUNTIMES, 0);
 
     }
 
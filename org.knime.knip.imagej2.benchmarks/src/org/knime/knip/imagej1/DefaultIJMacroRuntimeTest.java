@@ -0,0 +1,119 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright (C) 2003 - 2013
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * --------------------------------------------------------------------- *
+ *
+ */
+package org.knime.knip.imagej1;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.junit.Test;
+
+import net.imagej.ImgPlus;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+
+/**
+ * Runs macros that create new images on the {@link DefaultIJMacroRuntime}, the last batch mode image must be
+ * available as result of every run.
+ */
+public class DefaultIJMacroRuntimeTest {
+
+    private static ImgPlus<UnsignedByteType> createImg() {
+        return new ImgPlus<UnsignedByteType>(ArrayImgs.unsignedBytes(16, 12), "input");
+    }
+
+    private static void assertResult(final DefaultIJMacroRuntime runtime, final long... dims) {
+        final ImgPlus<? extends RealType<?>> res = runtime.resImgPlus();
+        assertNotNull(res);
+        final long[] resDims = new long[res.numDimensions()];
+        res.dimensions(resDims);
+        assertArrayEquals(dims, resDims);
+    }
+
+    /**
+     * A macro duplicating the input image.
+     */
+    @Test
+    public void testDuplicate() {
+        final DefaultIJMacroRuntime runtime = new DefaultIJMacroRuntime();
+        final String code = "run(\"Duplicate...\", \"title=copy\");";
+        // the same code is run repeatedly, as it is done for every row
+        for (int i = 0; i < 3; i++) {
+            runtime.run(code, createImg());
+            assertResult(runtime, 16, 12);
+        }
+    }
+
+    /**
+     * A macro creating a new image of another size.
+     */
+    @Test
+    public void testNewImage() {
+        final DefaultIJMacroRuntime runtime = new DefaultIJMacroRuntime();
+        final String code = "newImage(\"created\", \"8-bit black\", 8, 4, 1);";
+        for (int i = 0; i < 3; i++) {
+            runtime.run(code, createImg());
+            assertResult(runtime, 8, 4);
+        }
+    }
+
+    /**
+     * Macros with global variables and functions are run the same way.
+     */
+    @Test
+    public void testGlobalsAndFunctions() {
+        final DefaultIJMacroRuntime runtime = new DefaultIJMacroRuntime();
+        final String code = "var width = 5;\n" + "create();\n"
+                + "function create() { newImage(\"created\", \"8-bit black\", width, 3, 1); }";
+        for (int i = 0; i < 3; i++) {
+            runtime.run(code, createImg());
+            assertResult(runtime, 5, 3);
+        }
+    }
+}
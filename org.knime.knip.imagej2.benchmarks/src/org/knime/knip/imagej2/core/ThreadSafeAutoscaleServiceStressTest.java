@@ -0,0 +1,233 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright (C) 2003 - 2013
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * --------------------------------------------------------------------- *
+ *
+ */
+package org.knime.knip.imagej2.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.scijava.ItemIO;
+import org.scijava.command.Command;
+import org.scijava.command.CommandInfo;
+import org.scijava.module.Module;
+import org.scijava.module.ModuleInfo;
+import org.scijava.plugin.Parameter;
+
+import net.imagej.autoscale.AutoscaleService;
+import net.imagej.autoscale.DataRange;
+import net.imglib2.Cursor;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+
+/**
+ * Concurrently executes item callbacks of modules, as the cell factory of the ValueToCell nodes does it for every
+ * processed cell, together with direct autoscale lookups against the context of the {@link IJGateway}. Checks that
+ * the {@link ThreadSafeAutoscaleService} is used and that all threads get the correct data ranges.
+ */
+public class ThreadSafeAutoscaleServiceStressTest {
+
+    private static final int NUM_THREADS = 4 * Runtime.getRuntime().availableProcessors();
+
+    private static final int NUM_ITERATIONS = 500;
+
+    private static ExecutorService m_executor;
+
+    /**
+     * Module whose input callback autoscales the input image, like the ValueToCell modules do.
+     */
+    public static class AutoscaleCallbackCommand implements Command {
+
+        @Parameter
+        private AutoscaleService m_autoscaleService;
+
+        @Parameter(callback = "inputChanged")
+        private Img<UnsignedByteType> m_input;
+
+        @Parameter(type = ItemIO.OUTPUT)
+        private DataRange m_range;
+
+        @SuppressWarnings("unused")
+        private void inputChanged() {
+            m_range = m_autoscaleService.getDefaultIntervalRange(m_input);
+        }
+
+        @Override
+        public void run() {
+            // everything happens in the callback
+        }
+    }
+
+    /**
+     * Creates the thread pool.
+     */
+    @BeforeClass
+    public static void setUp() {
+        m_executor = Executors.newFixedThreadPool(NUM_THREADS);
+    }
+
+    /**
+     * Shuts the thread pool down.
+     */
+    @AfterClass
+    public static void tearDown() {
+        m_executor.shutdownNow();
+    }
+
+    /**
+     * The context of the gateway must provide the thread safe service.
+     */
+    @Test
+    public void testServiceIsThreadSafe() {
+        assertTrue(IJGateway.getService(AutoscaleService.class) instanceof ThreadSafeAutoscaleService);
+    }
+
+    /**
+     * @throws Exception if a thread fails
+     */
+    @Test
+    public void testConcurrentCallbacks() throws Exception {
+        final ModuleInfo info = new CommandInfo(AutoscaleCallbackCommand.class);
+        IJGateway.loadServicesFor(info);
+
+        runConcurrently(new Task() {
+            @Override
+            public void run(final int thread, final int iteration) throws Exception {
+                final Module module = info.createModule();
+                IJGateway.getImageJContext().inject(module);
+
+                final int min = (thread + iteration) % 200;
+                module.setInput("m_input", createImg(min, min + 50));
+                info.getInput("m_input").callback(module);
+
+                final DataRange range = (DataRange)module.getOutput("m_range");
+                assertNotNull(range);
+                assertEquals(min, range.getMin(), 0);
+                assertEquals(min + 50, range.getMax(), 0);
+            }
+        });
+    }
+
+    /**
+     * @throws Exception if a thread fails
+     */
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        final AutoscaleService service = IJGateway.getService(AutoscaleService.class);
+
+        runConcurrently(new Task() {
+            @Override
+            public void run(final int thread, final int iteration) throws Exception {
+                assertNotNull(service.getDefaultAutoscaleMethod());
+                for (final String name : service.getAutoscaleMethodNames()) {
+                    assertNotNull(service.getAutoscaleMethod(name));
+                }
+                assertTrue(!service.getAutoscaleMethods().isEmpty());
+
+                final int min = (thread * iteration) % 200;
+                final DataRange range = service.getDefaultIntervalRange(createImg(min, min + 10));
+                assertEquals(min, range.getMin(), 0);
+                assertEquals(min + 10, range.getMax(), 0);
+            }
+        });
+    }
+
+    private static Img<UnsignedByteType> createImg(final int min, final int max) {
+        final Img<UnsignedByteType> img = ArrayImgs.unsignedBytes(32, 32);
+        final Cursor<UnsignedByteType> c = img.cursor();
+        int i = 0;
+        while (c.hasNext()) {
+            c.next().set(min + (i++ % (max - min + 1)));
+        }
+        return img;
+    }
+
+    private interface Task {
+        void run(int thread, int iteration) throws Exception;
+    }
+
+    /**
+     * Starts all threads at once, each of them runs the task {@link #NUM_ITERATIONS} times.
+     */
+    private static void runConcurrently(final Task task) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Void>> futures = new ArrayList<Future<Void>>(NUM_THREADS);
+        for (int t = 0; t < NUM_THREADS; t++) {
+            final int thread = t;
+            futures.add(m_executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+                    for (int i = 0; i < NUM_ITERATIONS; i++) {
+                        task.run(thread, i);
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        start.countDown();
+        for (final Future<Void> future : futures) {
+            // fails with the assertion errors of the threads
+            future.get(5, TimeUnit.MINUTES);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright (C) 2003 - 2013
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * --------------------------------------------------------------------- *
+ *
+ */
+package org.knime.knip.imagej2.core.node;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.knime.knip.imagej2.core.imagejdialog.SettingsModelImageJDlg;
+import org.scijava.ItemIO;
+import org.scijava.command.Command;
+import org.scijava.command.CommandInfo;
+import org.scijava.command.ContextCommand;
+import org.scijava.module.Module;
+import org.scijava.plugin.Parameter;
+
+/**
+ * Checks that the {@link ModulePool} only reuses commands whose state is completely reset between two rows.
+ */
+public class ModulePoolTest {
+
+    /**
+     * Command whose complete state is held in its parameters.
+     */
+    public static class StatelessCommand extends ContextCommand {
+
+        @Parameter
+        private String m_input;
+
+        @Parameter(type = ItemIO.OUTPUT)
+        private String m_output;
+
+        @Override
+        public void run() {
+            m_output = m_input;
+        }
+    }
+
+    /**
+     * Command that counts its executions in a field that is not a parameter.
+     */
+    public static class StatefulCommand implements Command {
+
+        private int m_executions;
+
+        @Parameter(type = ItemIO.OUTPUT)
+        private Integer m_output;
+
+        @Override
+        public void run() {
+            m_output = ++m_executions;
+        }
+    }
+
+    /**
+     * Only the fields of the SciJava base classes and parameters are allowed.
+     */
+    @Test
+    public void testParameterFields() {
+        assertTrue(ModulePool.hasOnlyParameterFields(StatelessCommand.class));
+        assertFalse(ModulePool.hasOnlyParameterFields(StatefulCommand.class));
+    }
+
+    /**
+     * A stateless command is reused and its inputs and outputs are reset on release.
+     */
+    @Test
+    public void testStatelessCommandIsReused() {
+        final ModulePool pool =
+                new ModulePool(new CommandInfo(StatelessCommand.class), new SettingsModelImageJDlg("test"));
+
+        final Module first = pool.acquire();
+        first.setInput("m_input", "a");
+        first.run();
+        pool.release(first);
+
+        final Module second = pool.acquire();
+        assertSame(first, second);
+        assertEquals(null, second.getInput("m_input"));
+        assertEquals(null, second.getOutput("m_output"));
+    }
+
+    /**
+     * The execution count of a stateful command must not leak into the next row.
+     */
+    @Test
+    public void testStatefulCommandIsNotReused() {
+        final ModulePool pool =
+                new ModulePool(new CommandInfo(StatefulCommand.class), new SettingsModelImageJDlg("test"));
+
+        for (int row = 0; row < 3; row++) {
+            final Module module = pool.acquire();
+            module.run();
+            assertEquals(1, module.getOutput("m_output"));
+            pool.release(module);
+            assertNotSame(module, pool.acquire());
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright (C) 2003 - 2013
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * --------------------------------------------------------------------- *
+ *
+ */
+package org.knime.knip.imagej2.core.util;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ij.ImagePlus;
+import net.imagej.ImgPlus;
+import net.imagej.axis.Axes;
+import net.imagej.axis.AxisType;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.img.planar.PlanarImgFactory;
+import net.imglib2.ops.operation.Operations;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.ByteType;
+import net.imglib2.type.numeric.integer.ShortType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.Views;
+
+/**
+ * Throughput of the conversions between {@link ImgPlus} and {@link ImagePlus} across image sizes, pixel types and
+ * axis orders. Run with the GC profiler (see {@link ConversionBenchmarksRunner}) to get the allocation rate as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class ConversionBenchmarks {
+
+    // the parameter names are part of the published results, hence no field prefix
+
+    /** Size of the X and Y dimension. */
+    @Param({"256", "1024"})
+    public int size;
+
+    /** Pixel type of the image. */
+    @Param({"bit", "int8", "uint8", "int16", "uint16", "float"})
+    public String type;
+
+    /** Axis order of the image, C has 3 and Z 4 elements. XY and XYCZ are in ImageJ1 order. */
+    @Param({"XY", "XYCZ", "XYZC", "CZXY"})
+    public String axes;
+
+    private ImgPlus m_img;
+
+    private ImagePlus m_imp;
+
+    private RealType m_ijType;
+
+    /**
+     * Creates the image with random values and its {@link ImagePlus} counterpart.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        final RealType pixelType = createType(type);
+        final long[] dims = new long[axes.length()];
+        final AxisType[] axisTypes = new AxisType[axes.length()];
+        for (int d = 0; d < dims.length; d++) {
+            switch (axes.charAt(d)) {
+                case 'X':
+                    axisTypes[d] = Axes.X;
+                    dims[d] = size;
+                    break;
+                case 'Y':
+                    axisTypes[d] = Axes.Y;
+                    dims[d] = size;
+                    break;
+                case 'C':
+                    axisTypes[d] = Axes.CHANNEL;
+                    dims[d] = 3;
+                    break;
+                case 'Z':
+                    axisTypes[d] = Axes.Z;
+                    dims[d] = 4;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown axis " + axes.charAt(d));
+            }
+        }
+
+        final Img img = new PlanarImgFactory().create(dims, (NativeType)pixelType);
+        final double min = Math.max(pixelType.getMinValue(), -65536);
+        final double max = Math.min(pixelType.getMaxValue(), 65535);
+        final Random rnd = new Random(42);
+        for (final Object t : img) {
+            ((RealType)t).setReal(Math.round(min + rnd.nextDouble() * (max - min)));
+        }
+
+        m_img = new ImgPlus(img, "benchmark", axisTypes);
+        m_imp = ImgToIJ.wrap(m_img);
+        m_ijType = IJToImg.createMatchingType(m_imp);
+    }
+
+    private static RealType createType(final String name) {
+        switch (name) {
+            case "bit":
+                return new BitType();
+            case "int8":
+                return new ByteType();
+            case "uint8":
+                return new UnsignedByteType();
+            case "int16":
+                return new ShortType();
+            case "uint16":
+                return new UnsignedShortType();
+            case "float":
+                return new FloatType();
+            default:
+                throw new IllegalArgumentException("Unknown type " + name);
+        }
+    }
+
+    /**
+     * @return the wrapped image, direct for planar images in ImageJ1 order, converted otherwise
+     */
+    @Benchmark
+    public ImagePlus imgToIJWrap() {
+        return ImgToIJ.wrap(m_img);
+    }
+
+    /**
+     * @return the image converted back from ImageJ1, as done for the results of ImageJ1 macros
+     */
+    @Benchmark
+    public Object ijToImgCompute() {
+        return Operations.compute(new IJToImg(m_ijType, false, 5), m_imp);
+    }
+
+    /**
+     * @return checksum of all pixels converted by the default converter used by {@link ImgToIJ#wrap(ImgPlus)}
+     */
+    @Benchmark
+    public double defaultImgToIJ1Converter() {
+        final DefaultImgToIJ1Converter converter = new DefaultImgToIJ1Converter((RealType)m_img.firstElement());
+        final FloatType out = new FloatType();
+        double sum = 0;
+        for (final Object t : m_img) {
+            converter.convert((RealType)t, out);
+            sum += out.getRealDouble();
+        }
+        return sum;
+    }
+
+    /**
+     * @return checksum of all pixels read through the 5D view in ImageJ1 order
+     */
+    @Benchmark
+    public double extendAndPermute() {
+        final RandomAccessibleInterval permuted = ImgToIJ.extendAndPermute(m_img);
+        double sum = 0;
+        for (final Object t : Views.flatIterable(permuted)) {
+            sum += ((RealType)t).getRealDouble();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright (C) 2003 - 2013
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * --------------------------------------------------------------------- *
+ *
+ */
+package org.knime.knip.imagej2.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.knime.knip.imagej2.core.util.ConversionScheduler.PlaneRangeTask;
+
+/**
+ * Checks that a failing conversion only returns once no other chunk of the image is processed anymore.
+ */
+public class ConversionSchedulerTest {
+
+    private static final int NUM_PLANES = 4 * Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The chunk of the calling thread fails while the chunks of the pool are still running.
+     */
+    @Test
+    public void testFailureAwaitsRunningChunks() {
+        assumeTrue(Runtime.getRuntime().availableProcessors() > 1);
+
+        final Thread caller = Thread.currentThread();
+        final AtomicInteger running = new AtomicInteger();
+        final PlaneRangeTask task = new PlaneRangeTask() {
+            @Override
+            public void run(final int from, final int to) throws Exception {
+                if (Thread.currentThread() == caller) {
+                    throw new IllegalStateException("failed");
+                }
+                running.incrementAndGet();
+                try {
+                    Thread.sleep(200);
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        };
+
+        try {
+            ConversionScheduler.forEachPlaneRange(NUM_PLANES, ConversionScheduler.INLINE_THRESHOLD, task);
+            fail("the failure of the calling thread must be propagated");
+        } catch (final IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertEquals(0, running.get());
+    }
+}
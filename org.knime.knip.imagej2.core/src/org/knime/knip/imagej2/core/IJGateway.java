@@ -48,17 +48,24 @@
  */
 package org.knime.knip.imagej2.core;
 
+import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import net.imagej.DatasetService;
 
 import org.knime.core.node.NodeLogger;
 import org.knime.knip.imagej2.core.adapter.IJAdapterProvider;
 import org.knime.scijava.core.ResourceAwareClassLoader;
 import org.scijava.Context;
 import org.scijava.InstantiableException;
+import org.scijava.Priority;
 import org.scijava.command.CommandInfo;
+import org.scijava.command.CommandService;
 import org.scijava.command.DynamicCommand;
 import org.scijava.log.LogService;
 import org.scijava.module.MethodCallException;
@@ -68,8 +75,13 @@ import org.scijava.module.ModuleItem;
 import org.scijava.module.ModuleService;
 import org.scijava.object.ObjectService;
 import org.scijava.plugin.DefaultPluginFinder;
+import org.scijava.plugin.Parameter;
 import org.scijava.plugin.PluginIndex;
+import org.scijava.plugin.PluginInfo;
+import org.scijava.plugin.PluginService;
 import org.scijava.service.Service;
+import org.scijava.service.ServiceHelper;
+import org.scijava.thread.ThreadService;
 import org.scijava.util.ClassUtils;
 import org.scijava.util.ColorRGB;
 
@@ -97,6 +109,16 @@ public final class IJGateway {
             {Number.class, byte.class, double.class, float.class, int.class, long.class, short.class, String.class,
                     Character.class, char.class, Boolean.class, boolean.class, ColorRGB.class};
 
+    /**
+     * services the context is started with if {@link KNIMEIMAGEJPlugin#useMinimalContext()} is set, all other services
+     * are loaded when they are first required. Services a module only looks up at run time can not be detected, they
+     * are provided by {@link #loadAllServices()} once a module failed.
+     */
+    @SuppressWarnings("unchecked")
+    private static final List<Class<? extends Service>> MINIMAL_SERVICES = Arrays.<Class<? extends Service>> asList(
+            LogService.class, PluginService.class, CommandService.class, ModuleService.class, ObjectService.class,
+            ThreadService.class, DatasetService.class);
+
     // MEMBERS
 
     /** singleton instance on IJGateway (maybe headless or not). */
@@ -119,6 +141,15 @@ public final class IJGateway {
     /** version number of ImageJ. **/
     private String m_imagejVersion;
 
+    /** true if the context has been started with the {@link #MINIMAL_SERVICES} only. */
+    private final boolean m_minimalContext;
+
+    /** true once the context contains all services, always true if it hasn't been started with a minimal set. */
+    private volatile boolean m_allServicesLoaded;
+
+    /** loads missing services into a minimal context. */
+    private ServiceHelper m_serviceHelper;
+
     /** Singleton on ModuleService */
     private ModuleService m_moduleService;
 
@@ -148,13 +179,35 @@ public final class IJGateway {
         }
 
         // create ImageJ context with all available services
-        m_imageJContext = new Context(new PluginIndex(
-                new DefaultPluginFinder(new ResourceAwareClassLoader(getClass().getClassLoader(), getClass()))));
+        final ClassLoader pluginLoader = new ResourceAwareClassLoader(getClass().getClassLoader(), getClass());
+        final PluginIndex pluginIndex = new PluginIndex(new DefaultPluginFinder(pluginLoader));
+
+        // nodes execute modules concurrently, replace the autoscale service by a thread safe one
+        final PluginInfo<Service> autoscaleInfo =
+                new PluginInfo<Service>(ThreadSafeAutoscaleService.class, Service.class);
+        autoscaleInfo.setPriority(Priority.HIGH);
+        pluginIndex.add(autoscaleInfo);
+
+        final Runtime runtime = Runtime.getRuntime();
+        final long startHeap = runtime.totalMemory() - runtime.freeMemory();
+        final long startTime = System.currentTimeMillis();
+
+        m_minimalContext = KNIMEIMAGEJPlugin.useMinimalContext();
+        m_allServicesLoaded = !m_minimalContext;
+        if (m_minimalContext) {
+            m_imageJContext = new Context(MINIMAL_SERVICES, pluginIndex);
+        } else {
+            m_imageJContext = new Context(pluginIndex);
+        }
+
+        LOGGER.info("ImageJ context " + (m_minimalContext ? "with minimal service set " : "") + "started in "
+                + (System.currentTimeMillis() - startTime) + "ms, heap grew by "
+                + ((runtime.totalMemory() - runtime.freeMemory() - startHeap) >> 20) + "MB");
 
         // get list of modules, and filter them to those acceptable to
         // KNIME/KNIP
         final List<ModuleInfo> moduleInfos = getModuleService().getModules();
-        m_supportedModulesInfos = findSupportedModules(moduleInfos);
+        m_supportedModulesInfos = loadSupportedModules(moduleInfos, pluginLoader);
         m_delegateClassName2ModuleInfo = new HashMap<>(m_supportedModulesInfos.size());
         for (final ModuleInfo info : m_supportedModulesInfos) {
             m_delegateClassName2ModuleInfo.put(info.getDelegateClassName(), info);
@@ -176,6 +229,100 @@ public final class IJGateway {
         return getInstance().m_imageJContext;
     }
 
+    /**
+     * @param type the type of the requested service
+     * @return the service of the ImageJ context, loaded first if the context has been started with a minimal service
+     *         set. null if no such service exists.
+     */
+    public static <S extends Service> S getService(final Class<S> type) {
+        getInstance().loadService(type);
+        return getImageJContext().getService(type);
+    }
+
+    /**
+     * Makes sure that the services the {@link Parameter} fields of the given class ask for are part of the ImageJ
+     * context. Must be called before objects of the class are injected if the context has been started with a minimal
+     * service set and does nothing otherwise.
+     *
+     * @param type class of objects that get injected with the ImageJ context
+     */
+    @SuppressWarnings("unchecked")
+    public static void loadServicesFor(final Class<?> type) {
+        final IJGateway gateway = getInstance();
+        if (!gateway.m_allServicesLoaded) {
+            for (final Field field : ClassUtils.getAnnotatedFields(type, Parameter.class)) {
+                if (Service.class.isAssignableFrom(field.getType())) {
+                    gateway.loadService((Class<? extends Service>)field.getType());
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes sure that the services the module asks for are part of the ImageJ context, see
+     * {@link #loadServicesFor(Class)}.
+     *
+     * @param info module info of a module that gets injected with the ImageJ context
+     */
+    @SuppressWarnings("unchecked")
+    public static void loadServicesFor(final ModuleInfo info) {
+        final IJGateway gateway = getInstance();
+        if (!gateway.m_allServicesLoaded) {
+            for (final ModuleItem<?> item : info.inputs()) {
+                if (Service.class.isAssignableFrom(item.getType())) {
+                    gateway.loadService((Class<? extends Service>)item.getType());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the ImageJ context contains all services, i.e. if it hasn't been started with a minimal service
+     *         set or {@link #loadAllServices()} has been called
+     */
+    public static boolean hasAllServices() {
+        return getInstance().m_allServicesLoaded;
+    }
+
+    /**
+     * Loads all services which are not part of a minimal context yet. Modules that look up services at run time
+     * instead of declaring them as {@link Parameter} fields fail without them. Does nothing if the context already
+     * contains all services.
+     */
+    public static void loadAllServices() {
+        final IJGateway gateway = getInstance();
+        if (!gateway.m_allServicesLoaded) {
+            synchronized (gateway.m_imageJContext) {
+                if (!gateway.m_allServicesLoaded) {
+                    LOGGER.info("An ImageJ module requires services which are not part of the minimal context,"
+                            + " loading all services.");
+                    gateway.getServiceHelper().loadServices();
+                    gateway.m_allServicesLoaded = true;
+                }
+            }
+        }
+    }
+
+    private void loadService(final Class<? extends Service> type) {
+        if (!m_allServicesLoaded && (m_imageJContext.getService(type) == null)) {
+            synchronized (m_imageJContext) {
+                if (m_imageJContext.getService(type) == null) {
+                    LOGGER.debug("Loading ImageJ service on demand: " + type.getName());
+                    getServiceHelper().loadService(type);
+                }
+            }
+        }
+    }
+
+    /** must only be called while holding the lock on the context. */
+    private ServiceHelper getServiceHelper() {
+        if (m_serviceHelper == null) {
+            // without explicit service classes the helper loads all available services
+            m_serviceHelper = new ServiceHelper(m_imageJContext);
+        }
+        return m_serviceHelper;
+    }
+
     /**
      * @return the ModuleInfos of the modules ImageJ finds and KNIME supports
      */
@@ -210,6 +357,36 @@ public final class IJGateway {
 
     // PRIVATE HELPERS
 
+    /**
+     * uses the {@link SupportedModulesIndex} of the current plugin set to filter the modules if it exists, otherwise
+     * runs the support tests and stores the result in the index.
+     *
+     * @param modules the candidates
+     * @param pluginLoader the class loader the plugins are discovered with
+     * @return a filtered list that contains only plugins that can run in KNIME
+     */
+    private List<ModuleInfo> loadSupportedModules(final List<ModuleInfo> modules, final ClassLoader pluginLoader) {
+        final SupportedModulesIndex index = SupportedModulesIndex.forPluginSet(pluginLoader);
+        final Set<String> indexedModules = (index != null) ? index.load() : null;
+
+        if (indexedModules != null) {
+            // no need to load the plugin classes
+            final ArrayList<ModuleInfo> supportedModules = new ArrayList<ModuleInfo>(indexedModules.size());
+            for (final ModuleInfo info : modules) {
+                if (indexedModules.contains(info.getDelegateClassName())) {
+                    supportedModules.add(info);
+                }
+            }
+            return supportedModules;
+        }
+
+        final List<ModuleInfo> supportedModules = findSupportedModules(modules);
+        if (index != null) {
+            index.save(supportedModules);
+        }
+        return supportedModules;
+    }
+
     /**
      * tests if modules can run headless, have a static amount of inputs and outputs and whether KNIME supports these
      * input and output types.
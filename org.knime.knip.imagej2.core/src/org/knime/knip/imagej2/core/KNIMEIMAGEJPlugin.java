@@ -67,6 +67,9 @@ public class KNIMEIMAGEJPlugin extends AbstractUIPlugin {
     /** id of the eclipse folder path property. */
     public static final String PLUGIN_FOLDER_PATH = "IMAGEJ_BASE_PLUGIN_ECLIPSE_FOLDER_PATH";
 
+    /** id of the property that starts the ImageJ context with a minimal service set. */
+    public static final String MINIMAL_CONTEXT = "IMAGEJ_MINIMAL_CONTEXT";
+
     // The shared instance.
     private static KNIMEIMAGEJPlugin plugin;
 
@@ -99,6 +102,14 @@ public class KNIMEIMAGEJPlugin extends AbstractUIPlugin {
         return "";
     }
 
+    /**
+     * @return true if the ImageJ context should only start the services needed for the headless execution of modules
+     *         and load all other services on demand
+     */
+    public static boolean useMinimalContext() {
+        return (getDefault() != null) && getDefault().getPreferenceStore().getBoolean(MINIMAL_CONTEXT);
+    }
+
     /**
      * @param path string that should be tested
      * @return true if the path string points to a 'plugins' directory false for all other cases including the empty
@@ -0,0 +1,219 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright (C) 2003 - 2013
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * --------------------------------------------------------------------- *
+ *
+ */
+package org.knime.knip.imagej2.core;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+import org.knime.core.node.NodeLogger;
+import org.knime.knip.imagej2.core.adapter.IJAdapterProvider;
+import org.scijava.module.ModuleInfo;
+import org.scijava.plugin.Plugin;
+
+/**
+ * On-disk index of the modules that are supported by KNIME. Finding the supported modules requires to load the classes
+ * of all ImageJ commands and their parameter types, the index allows to skip this on later startups.<br>
+ * <br>
+ * The index is keyed by the version of this bundle and a checksum over the SciJava plugin indices of all plugin jars
+ * (location, modification date and content) and the types known to the {@link IJAdapterProvider}. It is rebuilt if
+ * the plugin set or the support tests change.
+ */
+final class SupportedModulesIndex {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(SupportedModulesIndex.class);
+
+    private static final String INDEX_FILE_NAME = "supported-modules.idx";
+
+    /** the resource that lists the plugins of a jar, as read by the DefaultPluginFinder. */
+    private static final String PLUGIN_INDEX_RESOURCE = "META-INF/json/" + Plugin.class.getName();
+
+    private static final String HEADER = "# supported ImageJ modules: delegate class";
+
+    private final File m_file;
+
+    private final String m_key;
+
+    private SupportedModulesIndex(final File file, final String key) {
+        m_file = file;
+        m_key = key;
+    }
+
+    /**
+     * @param pluginLoader the class loader the ImageJ plugins are discovered with
+     * @return the index for the current plugin set or null if the index can not be used (e.g. no state location)
+     */
+    static SupportedModulesIndex forPluginSet(final ClassLoader pluginLoader) {
+        final KNIMEIMAGEJPlugin plugin = KNIMEIMAGEJPlugin.getDefault();
+        if (plugin == null) {
+            return null;
+        }
+
+        try {
+            final File file = plugin.getStateLocation().append(INDEX_FILE_NAME).toFile();
+            return new SupportedModulesIndex(file, computeKey(plugin, pluginLoader));
+        } catch (final IOException | IllegalStateException e) {
+            LOGGER.debug("Supported modules index not available: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return the delegate class names of the supported modules or null if no index exists for the current plugin set
+     */
+    Set<String> load() {
+        if (!m_file.isFile()) {
+            return null;
+        }
+
+        try (BufferedReader reader =
+                new BufferedReader(new InputStreamReader(new FileInputStream(m_file), StandardCharsets.UTF_8))) {
+            if (!HEADER.equals(reader.readLine()) || !m_key.equals(reader.readLine())) {
+                return null;
+            }
+
+            final Set<String> delegateClassNames = new HashSet<String>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                delegateClassNames.add(line);
+            }
+            return delegateClassNames;
+        } catch (final IOException e) {
+            LOGGER.debug("Could not read supported modules index: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stores the supported modules for the current plugin set, replacing any previous index.
+     *
+     * @param supportedModules the modules that passed the support tests
+     */
+    void save(final List<ModuleInfo> supportedModules) {
+        final File tmp = new File(m_file.getPath() + ".tmp");
+        try (BufferedWriter writer =
+                new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+            writer.write(HEADER);
+            writer.newLine();
+            writer.write(m_key);
+            writer.newLine();
+
+            for (final ModuleInfo info : supportedModules) {
+                writer.write(info.getDelegateClassName());
+                writer.newLine();
+            }
+        } catch (final IOException e) {
+            LOGGER.debug("Could not write supported modules index: " + e.getMessage());
+            tmp.delete();
+            return;
+        }
+
+        if ((m_file.exists() && !m_file.delete()) || !tmp.renameTo(m_file)) {
+            LOGGER.debug("Could not replace supported modules index " + m_file);
+            tmp.delete();
+        }
+    }
+
+    private static String computeKey(final KNIMEIMAGEJPlugin plugin, final ClassLoader pluginLoader)
+            throws IOException {
+        final CRC32 crc = new CRC32();
+
+        final List<URL> pluginIndices = Collections.list(pluginLoader.getResources(PLUGIN_INDEX_RESOURCE));
+        final List<String> locations = new ArrayList<String>(pluginIndices.size());
+        for (final URL url : pluginIndices) {
+            locations.add(url.toString());
+        }
+        Collections.sort(locations);
+
+        final byte[] buffer = new byte[8192];
+        for (final String location : locations) {
+            crc.update(location.getBytes(StandardCharsets.UTF_8));
+
+            final URLConnection connection = new URL(location).openConnection();
+            crc.update(Long.toString(connection.getLastModified()).getBytes(StandardCharsets.UTF_8));
+            try (InputStream in = connection.getInputStream()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    crc.update(buffer, 0, read);
+                }
+            }
+        }
+
+        // the support tests depend on the available adapters as well
+        final Set<String> adapterTypes = new TreeSet<String>();
+        for (final Class<?> type : IJAdapterProvider.getKnownInputTypes()) {
+            adapterTypes.add("in:" + type.getName());
+        }
+        for (final Class<?> type : IJAdapterProvider.getKnownOutputTypes()) {
+            adapterTypes.add("out:" + type.getName());
+        }
+        for (final String type : adapterTypes) {
+            crc.update(type.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // the support tests themselves are part of this bundle
+        return plugin.getBundle().getVersion() + ":" + Long.toHexString(crc.getValue());
+    }
+}
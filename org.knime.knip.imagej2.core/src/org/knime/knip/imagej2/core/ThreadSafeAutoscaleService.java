@@ -0,0 +1,102 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright (C) 2003 - 2013
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * --------------------------------------------------------------------- *
+ *
+ */
+package org.knime.knip.imagej2.core;
+
+import java.util.List;
+import java.util.Map;
+
+import net.imagej.autoscale.AutoscaleMethod;
+import net.imagej.autoscale.DataRange;
+import net.imagej.autoscale.DefaultAutoscaleService;
+import net.imglib2.IterableInterval;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.view.Views;
+
+/**
+ * {@link DefaultAutoscaleService} that can be used by concurrently executed ImageJ modules. The default implementation
+ * builds its method lookup lazily and without synchronization, hence only the lookup is synchronized here. The actual
+ * range computation runs unsynchronized, such that images of concurrent nodes are autoscaled in parallel.<br>
+ * <br>
+ * The service is registered with a high priority in the context of the {@link IJGateway}.
+ */
+public class ThreadSafeAutoscaleService extends DefaultAutoscaleService {
+
+    @Override
+    public synchronized Map<String, AutoscaleMethod> getAutoscaleMethods() {
+        return super.getAutoscaleMethods();
+    }
+
+    @Override
+    public synchronized List<String> getAutoscaleMethodNames() {
+        return super.getAutoscaleMethodNames();
+    }
+
+    @Override
+    public synchronized AutoscaleMethod getAutoscaleMethod(final String name) {
+        return super.getAutoscaleMethod(name);
+    }
+
+    @Override
+    public synchronized AutoscaleMethod getDefaultAutoscaleMethod() {
+        return super.getDefaultAutoscaleMethod();
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Override
+    public DataRange getDefaultIntervalRange(final IterableInterval<? extends RealType<?>> interval) {
+        final AutoscaleMethod method = getDefaultAutoscaleMethod();
+        return method.getRange(interval);
+    }
+
+    @Override
+    public DataRange getDefaultRandomAccessRange(final RandomAccessibleInterval<? extends RealType<?>> interval) {
+        return getDefaultIntervalRange(Views.iterable(interval));
+    }
+}
@@ -54,6 +54,7 @@ import org.knime.knip.imagej2.core.IJGateway;
 import org.knime.knip.imagej2.core.adapter.DataValueConfigGuiInfos;
 import org.knime.knip.imagej2.core.adapter.IJStandardInputAdapter;
 import org.knime.knip.imagej2.core.adapter.ModuleItemDataValueConfig;
+import org.knime.knip.imagej2.core.util.CopyOnAccessPlanarImg;
 import org.scijava.ItemIO;
 import org.scijava.module.Module;
 import org.scijava.module.ModuleItem;
@@ -78,6 +79,9 @@ public class DatasetInputAdapter implements IJStandardInputAdapter<Dataset> {
 
     @Override
     public ModuleItemDataValueConfig createModuleItemConfig(final ModuleItem<Dataset> item) {
+        // the services of the dataset stay in the context, they only have to be loaded once and not for every row
+        IJGateway.loadServicesFor(DefaultDataset.class);
+
         return new ModuleItemDataValueConfig() {
             private DataValue[] m_dataValues;
 
@@ -96,8 +100,8 @@ public class DatasetInputAdapter implements IJStandardInputAdapter<Dataset> {
                 final DataValue dv = m_dataValues[0];
 
                 if (item.getIOType() == ItemIO.BOTH) {
-                    // make copy if item is in and output
-                    imgPlus = ((ImgPlusValue)dv).getImgPlusCopy();
+                    // planes are copied on their first access if item is in and output
+                    imgPlus = CopyOnAccessPlanarImg.createInOutImgPlus((ImgPlusValue)dv);
                 } else {
                     imgPlus = ((ImgPlusValue)dv).getImgPlus();
                 }
@@ -63,6 +63,7 @@ import org.knime.knip.imagej2.core.adapter.DataValueConfigGuiInfos;
 import org.knime.knip.imagej2.core.adapter.IJInputAdapter;
 import org.knime.knip.imagej2.core.adapter.IJStandardInputAdapter;
 import org.knime.knip.imagej2.core.adapter.ModuleItemDataValueConfig;
+import org.knime.knip.imagej2.core.util.CopyOnAccessPlanarImg;
 import org.scijava.ItemIO;
 import org.scijava.display.Display;
 import org.scijava.module.Module;
@@ -84,6 +85,10 @@ public class ImageDisplayInputAdapter implements IJStandardInputAdapter<ImageDis
 
     @Override
     public ModuleItemDataValueConfig createModuleItemConfig(final ModuleItem<ImageDisplay> item) {
+        // the services stay in the context, they only have to be loaded once and not for every row
+        IJGateway.loadServicesFor(DefaultDataset.class);
+        IJGateway.loadServicesFor(DefaultDatasetView.class);
+        IJGateway.loadServicesFor(MyImageDisplay.class);
 
         return new ModuleItemDataValueConfig() {
 
@@ -101,8 +106,8 @@ public class ImageDisplayInputAdapter implements IJStandardInputAdapter<ImageDis
             public void configureModuleItem(final Module module) {
                 ImgPlus imgPlus;
                 if (item.getIOType() == ItemIO.BOTH) {
-                    // make copy if item is in and output
-                    imgPlus = ((ImgPlusValue)m_dataValue).getImgPlusCopy();
+                    // planes are copied on their first access if item is in and output
+                    imgPlus = CopyOnAccessPlanarImg.createInOutImgPlus((ImgPlusValue)m_dataValue);
                 } else {
                     imgPlus = ((ImgPlusValue)m_dataValue).getImgPlus();
                 }
@@ -50,6 +50,9 @@ package org.knime.knip.imagej2.core.adapter.impl;
 
 import java.io.IOException;
 
+import net.imagej.Dataset;
+import net.imagej.display.DataView;
+import net.imagej.display.DatasetView;
 import net.imagej.display.ImageDisplay;
 import net.imagej.display.ImageDisplayService;
 import net.imagej.ImgPlus;
@@ -74,6 +77,9 @@ import org.knime.knip.imagej2.core.adapter.IJOutputAdapterInstance;
  */
 public class ImageDisplayOutputAdapter implements IJOutputAdapter<ImageDisplay> {
 
+    /** looked up on first use, only needed for displays whose active view doesn't show a dataset. */
+    private volatile ImageDisplayService m_displayService;
+
     @Override
     public Class<ImageDisplay> getIJType() {
         return ImageDisplay.class;
@@ -105,9 +111,7 @@ public class ImageDisplayOutputAdapter implements IJOutputAdapter<ImageDisplay>
             @Override
             public DataCell[] getDataCells(final ImageDisplay ijObject) {
 
-                final ImageDisplayService serve = IJGateway.getImageJContext().getService(ImageDisplayService.class);
-
-                final ImgPlus tmp = serve.getActiveDataset(ijObject).getImgPlus();
+                final ImgPlus tmp = getActiveDataset(ijObject).getImgPlus();
                 ImgPlusCell output = null;
                 try {
                     output = factory.createCell(tmp);
@@ -122,4 +126,22 @@ public class ImageDisplayOutputAdapter implements IJOutputAdapter<ImageDisplay>
 
     }
 
+    /**
+     * @return the dataset of the active view, taken from the view directly if it is a {@link DatasetView} instead of
+     *         asking the {@link ImageDisplayService}
+     */
+    private Dataset getActiveDataset(final ImageDisplay display) {
+        final DataView view = display.getActiveView();
+        if (view instanceof DatasetView) {
+            return ((DatasetView)view).getData();
+        }
+
+        ImageDisplayService service = m_displayService;
+        if (service == null) {
+            service = IJGateway.getService(ImageDisplayService.class);
+            m_displayService = service;
+        }
+        return service.getActiveDataset(display);
+    }
+
 }
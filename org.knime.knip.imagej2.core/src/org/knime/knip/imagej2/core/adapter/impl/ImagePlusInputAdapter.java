@@ -58,7 +58,6 @@ import org.knime.knip.imagej2.core.adapter.IJInputAdapter;
 import org.knime.knip.imagej2.core.adapter.IJStandardInputAdapter;
 import org.knime.knip.imagej2.core.adapter.ModuleItemDataValueConfig;
 import org.knime.knip.imagej2.core.util.ImgToIJ;
-import org.scijava.ItemIO;
 import org.scijava.module.Module;
 import org.scijava.module.ModuleItem;
 
@@ -98,15 +97,11 @@ public class ImagePlusInputAdapter implements IJStandardInputAdapter<ImagePlus>
             @Override
             public void configureModuleItem(final Module module) {
 
-                ImgPlus imgPlus;
-                if (item.getIOType() == ItemIO.BOTH) {
-                    // make copy if item is in and output
-                    imgPlus = ((ImgPlusValue)m_dataValue).getImgPlusCopy();
-                } else {
-                    imgPlus = ((ImgPlusValue)m_dataValue).getImgPlus();
-                }
+                final ImgPlus imgPlus = ((ImgPlusValue)m_dataValue).getImgPlus();
 
-                module.setInput(item.getName(), ImgToIJ.wrap(imgPlus));
+                // ImageJ1 commands may change the pixels of their input in place, hence the planes of the cell are
+                // always copied (which is still cheaper than a conversion pixel by pixel)
+                module.setInput(item.getName(), ImgToIJ.wrap(imgPlus, false));
             }
 
             @Override
@@ -60,14 +60,19 @@ import org.knime.knip.base.data.img.ImgPlusValue;
 import org.knime.knip.imagej2.core.adapter.IJOutputAdapter;
 import org.knime.knip.imagej2.core.adapter.IJOutputAdapterInstance;
 import org.knime.knip.imagej2.core.util.IJToImg;
+import org.knime.knip.imagej2.core.util.ImagePlusAnalysis;
+import org.knime.knip.imagej2.core.util.ImagePlusWrapper;
 
 import ij.ImagePlus;
 import net.imagej.ImgPlus;
 import net.imglib2.img.Img;
 import net.imglib2.ops.operation.Operations;
+import net.imglib2.type.logic.BitType;
 
 /**
- * {@link IJOutputAdapter} for {@link ImagePlus}
+ * {@link IJOutputAdapter} for {@link ImagePlus}. The pixel arrays of 8-bit, 16-bit and 32-bit images are used as
+ * planes of the result image without copying, RGB images are split into three 8-bit channels and binary images are
+ * converted pixel by pixel.
  *
  * @author <a href="mailto:dietzc85@googlemail.com">Christian Dietz</a>
  * @author <a href="mailto:horn_martin@gmx.de">Martin Horn</a>
@@ -107,12 +112,19 @@ public class ImagePlusOutputAdapter implements IJOutputAdapter<ImagePlus> {
             @Override
             public DataCell[] getDataCells(final ImagePlus ijObject) {
 
-                final IJToImg convert = new IJToImg(IJToImg.createMatchingType(ijObject));
-                final Img image = (Img)Operations.compute(convert, ijObject);
+                final ImgPlus image;
+                if (ImagePlusAnalysis.isBinary(ijObject)) {
+                    // binary 8-bit images become bit images
+                    image = new ImgPlus((Img)Operations.compute(new IJToImg(new BitType()), ijObject));
+                } else {
+                    // the module is done with the image, its pixel arrays can be taken over, RGB images are split
+                    // into three channels
+                    image = ImagePlusWrapper.wrap(ijObject, ijObject.getTitle(), true);
+                }
 
                 ImgPlusCell output = null;
                 try {
-                    output = factory.createCell(new ImgPlus(image));
+                    output = factory.createCell(image);
                 } catch (final IOException e) {
                     e.printStackTrace();
                 }
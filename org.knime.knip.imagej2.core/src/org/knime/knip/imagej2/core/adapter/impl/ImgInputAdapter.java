@@ -57,6 +57,7 @@ import org.knime.knip.imagej2.core.adapter.DataValueConfigGuiInfos;
 import org.knime.knip.imagej2.core.adapter.IJInputAdapter;
 import org.knime.knip.imagej2.core.adapter.IJStandardInputAdapter;
 import org.knime.knip.imagej2.core.adapter.ModuleItemDataValueConfig;
+import org.knime.knip.imagej2.core.util.CopyOnAccessPlanarImg;
 import org.scijava.ItemIO;
 import org.scijava.module.Module;
 import org.scijava.module.ModuleItem;
@@ -94,12 +95,13 @@ public class ImgInputAdapter implements IJStandardInputAdapter<Img> {
                 }
             }
 
+            @SuppressWarnings("unchecked")
             @Override
             public void configureModuleItem(final Module module) {
                 ImgPlus imgPlus;
                 if (item.getIOType() == ItemIO.BOTH) {
-                    // make copy if item is in and output
-                    imgPlus = ((ImgPlusValue)m_dataValue).getImgPlusCopy();
+                    // planes are copied on their first access if item is in and output
+                    imgPlus = CopyOnAccessPlanarImg.createInOutImgPlus((ImgPlusValue)m_dataValue);
                 } else {
                     imgPlus = ((ImgPlusValue)m_dataValue).getImgPlus();
                 }
@@ -48,10 +48,21 @@
  */
 package org.knime.knip.imagej2.core.adapter.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
 import net.imglib2.Cursor;
 import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.planar.PlanarImg;
 import net.imglib2.roi.labeling.ImgLabeling;
+import net.imglib2.roi.labeling.LabelingMapping;
 import net.imglib2.roi.labeling.LabelingType;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.IntegerType;
 import net.imglib2.view.Views;
 
 import org.knime.core.data.DataValue;
@@ -108,9 +119,18 @@ public class LabelingInputAdapter implements IJStandardInputAdapter<ImgLabeling>
                 module.setInput(item.getName(), lab);
             }
 
+            @SuppressWarnings("unchecked")
             private <L> RandomAccessibleInterval<LabelingType<L>>
                     copy(final RandomAccessibleInterval<LabelingType<L>> lab) {
 
+                if (lab instanceof ImgLabeling) {
+                    final RandomAccessibleInterval<LabelingType<L>> res = copyIndexed((ImgLabeling<L, ?>)lab);
+                    if (res != null) {
+                        return res;
+                    }
+                }
+
+                // label sets are copied pixel by pixel
                 RandomAccessibleInterval<LabelingType<L>> res = KNIPGateway.ops().create().imgLabeling(lab);
 
                 Cursor<LabelingType<L>> c1 = Views.iterable(lab).cursor();
@@ -123,6 +143,22 @@ public class LabelingInputAdapter implements IJStandardInputAdapter<ImgLabeling>
                 return res;
             }
 
+            /**
+             * copies the index image in bulk and transfers the label sets of the mapping, such that no label set is
+             * touched per pixel. Returns null if the index image is no {@link Img}.
+             */
+            private <L, I extends IntegerType<I>> ImgLabeling<L, I> copyIndexed(final ImgLabeling<L, I> lab) {
+                final Img<I> index = copyIndexImg(lab.getIndexImg());
+                if (index == null) {
+                    return null;
+                }
+
+                final ImgLabeling<L, I> res = new ImgLabeling<L, I>(index);
+                // the label sets keep their indices, as they are added in the order of their indices
+                new MappingAccess<L>(res.getMapping()).setSets(new MappingAccess<L>(lab.getMapping()).getSets());
+                return res;
+            }
+
             @Override
             public void setConfigurationData(final DataValue[] dataValues) {
                 m_dataValue = dataValues[0];
@@ -136,4 +172,63 @@ public class LabelingInputAdapter implements IJStandardInputAdapter<ImgLabeling>
 
         };
     }
+
+    /**
+     * @return a copy of the index image, the primitive storage of {@link ArrayImg}s and {@link PlanarImg}s is copied
+     *         as a whole, other {@link Img}s with {@link Img#copy()}. Null if the index image is no {@link Img}.
+     */
+    @SuppressWarnings("unchecked")
+    private static <I extends IntegerType<I>> Img<I> copyIndexImg(final RandomAccessibleInterval<I> index) {
+        if (index instanceof ArrayImg && ((ArrayImg)index).update(null) instanceof ArrayDataAccess) {
+            final ArrayImg src = (ArrayImg)index;
+            final ArrayImg copy = new ArrayImg(copyAccess((ArrayDataAccess)src.update(null)), dimensions(src),
+                    src.getEntitiesPerPixel());
+            copy.setLinkedType(((NativeType)src.firstElement()).getNativeTypeFactory().createLinkedType(copy));
+            return copy;
+        } else if (index instanceof PlanarImg) {
+            final PlanarImg src = (PlanarImg)index;
+            final List<ArrayDataAccess> planes = new ArrayList<ArrayDataAccess>(src.numSlices());
+            for (int i = 0; i < src.numSlices(); i++) {
+                planes.add(copyAccess((ArrayDataAccess)src.getPlane(i)));
+            }
+            final PlanarImg copy = new PlanarImg(planes, dimensions(src), src.getEntitiesPerPixel());
+            copy.setLinkedType(((NativeType)src.firstElement()).getNativeTypeFactory().createLinkedType(copy));
+            return copy;
+        } else if (index instanceof Img) {
+            return ((Img<I>)index).copy();
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArrayDataAccess copyAccess(final ArrayDataAccess access) {
+        final ArrayDataAccess copy = (ArrayDataAccess)access.createArray(access.getArrayLength());
+        System.arraycopy(access.getCurrentStorageArray(), 0, copy.getCurrentStorageArray(), 0,
+                         access.getArrayLength());
+        return copy;
+    }
+
+    private static long[] dimensions(final Img<?> img) {
+        final long[] dims = new long[img.numDimensions()];
+        img.dimensions(dims);
+        return dims;
+    }
+
+    /**
+     * Reads and writes the label sets of a {@link LabelingMapping}.
+     */
+    private static final class MappingAccess<L> extends LabelingMapping.SerialisationAccess<L> {
+
+        private MappingAccess(final LabelingMapping<L> mapping) {
+            super(mapping);
+        }
+
+        private List<Set<L>> getSets() {
+            return getLabelSets();
+        }
+
+        private void setSets(final List<Set<L>> sets) {
+            setLabelSets(sets);
+        }
+    }
 }
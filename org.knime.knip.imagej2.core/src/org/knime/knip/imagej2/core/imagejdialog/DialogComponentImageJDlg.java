@@ -92,6 +92,7 @@ public class DialogComponentImageJDlg extends DialogComponent {
         m_inputPanel = new ExtendedInputPanel();
         final SwingInputHarvester harvester = new SwingInputHarvester();
 
+        IJGateway.loadServicesFor(SwingInputHarvester.class);
         IJGateway.getImageJContext().inject(harvester);
 
         try {
@@ -52,23 +52,31 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValue;
+import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.RowKey;
-import org.knime.core.data.container.CellFactory;
+import org.knime.core.data.container.AbstractCellFactory;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeLogger;
+import org.knime.core.node.NodeSettings;
 import org.knime.knip.imagej2.core.IJGateway;
 import org.knime.knip.imagej2.core.adapter.DataValueConfigGuiInfos;
 import org.knime.knip.imagej2.core.adapter.IJAdapterProvider;
+import org.knime.knip.imagej2.core.adapter.IJInputAdapter;
 import org.knime.knip.imagej2.core.adapter.IJOutputAdapterInstance;
 import org.knime.knip.imagej2.core.adapter.ModuleItemConfig;
 import org.knime.knip.imagej2.core.adapter.ModuleItemDataValueConfig;
 import org.knime.knip.imagej2.core.adapter.ModuleItemRowConfig;
+import org.knime.knip.imagej2.core.adapter.PersistentModuleItemConfig;
+import org.knime.knip.imagej2.core.util.CopyOnAccessPlanarImg;
+import org.knime.knip.imagej2.core.util.ExecutionMetrics;
 import org.scijava.module.MethodCallException;
 import org.scijava.module.Module;
 import org.scijava.module.ModuleItem;
@@ -79,37 +87,155 @@ import org.scijava.module.process.ModulePreprocessor;
 /**
  * Provides a basic set of methods that are common to all IJCellFactories like support for missing cell count and the
  * {@link #executeRowModule(Module)} method. Additionally provides helper methods for the configuration
- * {@link ModuleItemRowConfig} and {@link ModuleItemDataValueConfig}.
+ * {@link ModuleItemRowConfig} and {@link ModuleItemDataValueConfig}.<br>
+ * <br>
+ * Rows can be processed concurrently (see {@link #setParallelWorkers(int, DataTableSpec)}), in this case every worker
+ * thread configures its modules with its own copies of the module item configs.<br>
+ * <br>
+ * The phases of the row processing are recorded in the {@link ExecutionMetrics} set with
+ * {@link #setExecutionMetrics(ExecutionMetrics)}, nothing is recorded by default.
  *
  *
  * @author <a href="mailto:dietzc85@googlemail.com">Christian Dietz</a>
  * @author <a href="mailto:horn_martin@gmx.de">Martin Horn</a>
  * @author <a href="mailto:michael.zinsmaier@googlemail.com">Michael Zinsmaier</a>
  */
-public abstract class AbstractIJCellFactory implements CellFactory {
+public abstract class AbstractIJCellFactory extends AbstractCellFactory {
 
     private static final NodeLogger LOGGER = NodeLogger.getLogger(AbstractIJCellFactory.class);
 
+    /** phase of taking a dialog configured module from the pool. */
+    protected static final String PHASE_MODULE_CREATION = "module_creation";
+
+    /** phase of configuring a module with the values of a row. */
+    protected static final String PHASE_INPUT_ADAPTATION = "input_adaptation";
+
+    /** phase of running a configured module. */
+    protected static final String PHASE_MODULE_EXECUTION = "module_execution";
+
+    /** phase of converting the module outputs to data cells. */
+    protected static final String PHASE_OUTPUT_ADAPTATION = "output_adaptation";
+
     /** counts the number of errors that resulted in missing cell output. */
-    private int m_missingCellCount;
+    private final AtomicInteger m_missingCellCount;
 
     private final ExecutionContext m_exec;
 
+    /** the module item configs of the current worker thread, only used for parallel execution. */
+    private final ThreadLocal<List<ModuleItemConfig>> m_workerConfigs;
+
+    /** spec of the processed table, null if rows are processed sequentially. */
+    private DataTableSpec m_workerInSpec;
+
+    private ExecutionMetrics m_metrics = ExecutionMetrics.DISABLED;
+
     /**
      * Create a new {@link AbstractIJCellFactory} which uses the given {@link ExecutionContext}
      *
      * @param exec
      */
     public AbstractIJCellFactory(final ExecutionContext exec) {
-        m_missingCellCount = 0;
+        m_missingCellCount = new AtomicInteger(0);
         m_exec = exec;
+        m_workerConfigs = new ThreadLocal<List<ModuleItemConfig>>();
     }
 
     /**
      * @return the amount of cells that could not be processed and have been set to MissingCell.
      */
     public int getMissingCellCount() {
-        return m_missingCellCount;
+        return m_missingCellCount.get();
+    }
+
+    /**
+     * Lets the rows be processed by the given number of workers if the factory is used with a ColumnRearranger. The
+     * output keeps the row order of the input table.
+     *
+     * @param numWorkers the number of rows that are processed concurrently, values smaller than two keep the
+     *            sequential processing
+     * @param inSpec the spec of the processed table, used to set up the module item configs of the workers
+     */
+    public void setParallelWorkers(final int numWorkers, final DataTableSpec inSpec) {
+        if (numWorkers > 1) {
+            setThreadLocalConfigs(inSpec);
+            setParallelProcessing(true, numWorkers, 4 * numWorkers);
+        }
+    }
+
+    /**
+     * Lets every thread configure its modules with its own copies of the module item configs, even if the rows of
+     * this factory are processed sequentially. Required if the module item configs are shared with other factories
+     * that run concurrently, e.g. in the partitions of a streamed execution.
+     *
+     * @param inSpec the spec of the processed table, used to set up the copies of the module item configs
+     */
+    public void setThreadLocalConfigs(final DataTableSpec inSpec) {
+        m_workerInSpec = inSpec;
+    }
+
+    /**
+     * @param metrics the metrics the processing phases of the rows are recorded in
+     */
+    public void setExecutionMetrics(final ExecutionMetrics metrics) {
+        m_metrics = metrics;
+    }
+
+    /**
+     * @return the metrics the processing phases of the rows are recorded in, {@link ExecutionMetrics#DISABLED} if none
+     *         have been set
+     */
+    protected ExecutionMetrics getExecutionMetrics() {
+        return m_metrics;
+    }
+
+    /**
+     * @param moduleItemConfigs the module item configs of the node model
+     * @return the given module item configs for sequential processing, otherwise (parallel workers or thread local
+     *         configs) copies of them that are exclusively used by the calling thread
+     */
+    protected List<ModuleItemConfig> getWorkerModuleItemConfigs(final List<ModuleItemConfig> moduleItemConfigs) {
+        if (m_workerInSpec == null) {
+            return moduleItemConfigs;
+        }
+
+        List<ModuleItemConfig> configs = m_workerConfigs.get();
+        if (configs == null) {
+            // the configs of the node model may be bound to the columns by another partition at the same time
+            synchronized (moduleItemConfigs) {
+                configs = copyModuleItemConfigs(moduleItemConfigs, m_workerInSpec);
+            }
+            m_workerConfigs.set(configs);
+        }
+        return configs;
+    }
+
+    /**
+     * creates a new config for every given config using its input adapter and transfers the persistent settings.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static List<ModuleItemConfig> copyModuleItemConfigs(final List<ModuleItemConfig> moduleItemConfigs,
+                                                                final DataTableSpec inSpec) {
+        final List<ModuleItemConfig> copies = new ArrayList<ModuleItemConfig>(moduleItemConfigs.size());
+        try {
+            for (final ModuleItemConfig itemConfig : moduleItemConfigs) {
+                final ModuleItem item = itemConfig.getItem();
+                final IJInputAdapter inputAdapter = IJAdapterProvider.getInputAdapter(item.getType());
+                final ModuleItemConfig copy = inputAdapter.createModuleItemConfig(item);
+
+                if (itemConfig instanceof PersistentModuleItemConfig) {
+                    final NodeSettings settings = new NodeSettings("worker_config");
+                    ((PersistentModuleItemConfig)itemConfig).saveSettingsTo(settings);
+                    ((PersistentModuleItemConfig)copy).loadSettingsFrom(settings);
+                }
+                if (copy instanceof ModuleItemRowConfig) {
+                    ((ModuleItemRowConfig)copy).setDataTableSpec(inSpec, null);
+                }
+                copies.add(copy);
+            }
+        } catch (final InvalidSettingsException e) {
+            throw new IllegalStateException("Module item configs could not be copied: " + e.getMessage(), e);
+        }
+        return copies;
     }
 
     /**
@@ -204,17 +330,9 @@ public abstract class AbstractIJCellFactory implements CellFactory {
      * @throws Exception
      */
     protected List<DataCell> executeRowModule(final Module rowModule) throws Exception {
-        @SuppressWarnings("rawtypes")
-        final Map<Class<?>, IJOutputAdapterInstance> adapterMap = new HashMap<Class<?>, IJOutputAdapterInstance>();
-
-        for (final ModuleItem<?> outItem : rowModule.getInfo().outputs()) {
-            if (!adapterMap.containsKey(outItem.getType())) {
-                adapterMap.put(outItem.getType(), IJAdapterProvider.getOutputAdapter(outItem.getType())
-                        .createAdapterInstance(m_exec));
-            }
-        }
-
         // execute the module
+        long startNanos = m_metrics.now();
+        long startBytes = m_metrics.allocatedBytes();
         final List<ModulePreprocessor> pre = new ArrayList<ModulePreprocessor>();
         final InitPreprocessor ip = new InitPreprocessor();
         // TODO        final ValidityPreprocessor
@@ -225,7 +343,26 @@ public abstract class AbstractIJCellFactory implements CellFactory {
         // TODO potentially: ModuleService.run(...) for ...
         final ModuleRunner runner = new ModuleRunner(IJGateway.getImageJContext(), rowModule, pre, null);
 
-        runner.run();
+        try {
+            runner.run();
+        } finally {
+            // in and output images are only read from now on, stop copying their untouched planes
+            CopyOnAccessPlanarImg.sealCreatedImgs();
+        }
+        m_metrics.add(PHASE_MODULE_EXECUTION, startNanos, startBytes);
+
+        startNanos = m_metrics.now();
+        startBytes = m_metrics.allocatedBytes();
+
+        @SuppressWarnings("rawtypes")
+        final Map<Class<?>, IJOutputAdapterInstance> adapterMap = new HashMap<Class<?>, IJOutputAdapterInstance>();
+
+        for (final ModuleItem<?> outItem : rowModule.getInfo().outputs()) {
+            if (!adapterMap.containsKey(outItem.getType())) {
+                adapterMap.put(outItem.getType(), IJAdapterProvider.getOutputAdapter(outItem.getType())
+                        .createAdapterInstance(m_exec));
+            }
+        }
 
         // TODO: potentially just make use of a postprocessor. but for now its fine!!
         // collect the outputs
@@ -235,7 +372,7 @@ public abstract class AbstractIJCellFactory implements CellFactory {
 
             if (ijObject == null) {
                 resCells.add(DataType.getMissingCell());
-                m_missingCellCount++;
+                m_missingCellCount.incrementAndGet();
             } else {
 
                 @SuppressWarnings("unchecked")
@@ -247,9 +384,26 @@ public abstract class AbstractIJCellFactory implements CellFactory {
             }
 
         }
+        m_metrics.add(PHASE_OUTPUT_ADAPTATION, startNanos, startBytes);
         return resCells;
     }
 
+    /**
+     * Modules may look up services at run time which they don't declare as parameters. Such lookups fail if the
+     * ImageJ context has been started with a minimal service set, hence all remaining services are loaded if a row
+     * fails with an incomplete context.
+     *
+     * @param allServices true if the context contained all services when the processing of the failed row started
+     * @return true if the failed row has to be processed once more
+     */
+    protected boolean retryWithAllServices(final boolean allServices) {
+        if (allServices) {
+            return false;
+        }
+        IJGateway.loadAllServices();
+        return true;
+    }
+
     @Override
     public void setProgress(final int curRowNr, final int rowCount, final RowKey lastKey, final ExecutionMonitor exec) {
         exec.setProgress((double)curRowNr / rowCount);
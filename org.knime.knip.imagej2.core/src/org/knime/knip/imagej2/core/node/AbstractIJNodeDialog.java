@@ -57,7 +57,9 @@ import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.NotConfigurableException;
 import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
 import org.knime.core.node.defaultnodesettings.DialogComponent;
+import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
 import org.knime.core.node.defaultnodesettings.DialogComponentColumnNameSelection;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
 import org.knime.knip.imagej2.core.IJGateway;
 import org.knime.knip.imagej2.core.adapter.DataValueConfigGuiInfos;
@@ -70,6 +72,7 @@ import org.knime.knip.imagej2.core.adapter.ModuleItemDataValueConfig;
 import org.knime.knip.imagej2.core.imagejdialog.DialogComponentImageJDlg;
 import org.knime.knip.imagej2.core.imagejdialog.HarvesterModuleWrapper;
 import org.knime.knip.imagej2.core.imagejdialog.SettingsModelImageJDlg;
+import org.knime.knip.imagej2.core.util.ExecutionMetrics;
 import org.scijava.module.Module;
 import org.scijava.module.ModuleInfo;
 import org.scijava.module.ModuleItem;
@@ -109,8 +112,10 @@ public abstract class AbstractIJNodeDialog extends DefaultNodeSettingsPane {
     protected AbstractIJNodeDialog(final ModuleInfo info) {
         m_dummyModel = AbstractIJNodeModel.createImageJDlgModel();
         m_dummyModel.setEnabled(false);
+        IJGateway.loadServicesFor(info);
         final Module module = IJGateway.getInstance().getModuleService().createModule(info);
         final ServicePreprocessor servicePreproc = new ServicePreprocessor();
+        IJGateway.loadServicesFor(ServicePreprocessor.class);
         IJGateway.getImageJContext().inject(servicePreproc);
         servicePreproc.process(module);
 
@@ -198,6 +203,23 @@ public abstract class AbstractIJNodeDialog extends DefaultNodeSettingsPane {
         }
     }
 
+    /**
+     * Creates the execution tab that allows to set the number of rows that are processed concurrently and to enable
+     * the collection of execution metrics.
+     */
+    protected void createExecutionTab() {
+        createNewTab("Execution");
+        createNewGroup("Parallel Execution");
+        addDialogComponent(new DialogComponentNumber(AbstractIJNodeModel.createNumWorkersModel(),
+                "Number of rows processed in parallel", 1));
+        closeCurrentGroup();
+        createNewGroup("Execution Metrics");
+        addDialogComponent(new DialogComponentBoolean(AbstractIJNodeModel.createCollectMetricsModel(),
+                "Collect execution metrics (flow variables \"" + ExecutionMetrics.FLOW_VARIABLE_PREFIX
+                        + "*\" and JMX)"));
+        closeCurrentGroup();
+    }
+
     /**
      * helper method that adds the DialogComponents of the group to the dialog and follows the placement hints of the
      * group.
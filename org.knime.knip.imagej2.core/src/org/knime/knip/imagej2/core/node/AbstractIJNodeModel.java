@@ -50,13 +50,17 @@ package org.knime.knip.imagej2.core.node;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataValue;
+import org.knime.core.data.container.ColumnRearranger;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.BufferedDataTableHolder;
 import org.knime.core.node.CanceledExecutionException;
@@ -67,7 +71,18 @@ import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.workflow.NodeContext;
 import org.knime.knip.base.node.NodeUtils;
 import org.knime.knip.imagej2.core.IJGateway;
 import org.knime.knip.imagej2.core.adapter.DataValueConfigGuiInfos;
@@ -78,6 +93,7 @@ import org.knime.knip.imagej2.core.adapter.PersistentModuleItemConfig;
 import org.knime.knip.imagej2.core.adapter.impl.basicinput.AbstractModuleItemBasicInputConfig;
 import org.knime.knip.imagej2.core.imagejdialog.DialogComponentImageJDlg;
 import org.knime.knip.imagej2.core.imagejdialog.SettingsModelImageJDlg;
+import org.knime.knip.imagej2.core.util.ExecutionMetrics;
 import org.scijava.Context;
 import org.scijava.module.Module;
 import org.scijava.module.ModuleException;
@@ -98,6 +114,10 @@ public abstract class AbstractIJNodeModel extends NodeModel implements BufferedD
 
     private static final NodeLogger LOGGER = NodeLogger.getLogger(AbstractIJNodeModel.class);
 
+    private static final String CFG_NUM_WORKERS = "num_parallel_workers";
+
+    private static final String CFG_COLLECT_METRICS = "collect_execution_metrics";
+
     /**
      * @return the settings model for the ImageJ dialog.
      */
@@ -114,6 +134,20 @@ public abstract class AbstractIJNodeModel extends NodeModel implements BufferedD
         return new SettingsModelString("ItemValueConfig_" + identifier, "");
     }
 
+    /**
+     * @return the settings model for the number of rows that are processed concurrently.
+     */
+    static SettingsModelIntegerBounded createNumWorkersModel() {
+        return new SettingsModelIntegerBounded(CFG_NUM_WORKERS, 1, 1, 256);
+    }
+
+    /**
+     * @return the settings model that determines whether execution metrics are collected.
+     */
+    static SettingsModelBoolean createCollectMetricsModel() {
+        return new SettingsModelBoolean(CFG_COLLECT_METRICS, false);
+    }
+
     /**
      * needed to implement TableCellViewProvider data table for the table cell
      * view
@@ -135,6 +169,18 @@ public abstract class AbstractIJNodeModel extends NodeModel implements BufferedD
      */
     protected HashMap<String, Class<? extends DataValue>> m_columnSelectionDataValues;
 
+    /** settings model for the number of rows that are processed concurrently. */
+    protected final SettingsModelIntegerBounded m_numWorkers = createNumWorkersModel();
+
+    /** settings model that determines whether execution metrics are collected. */
+    protected final SettingsModelBoolean m_collectMetrics = createCollectMetricsModel();
+
+    /** metrics of the last execution, registered as MXBean until the node is reset. */
+    private volatile ExecutionMetrics m_metrics = ExecutionMetrics.DISABLED;
+
+    /** true if the metrics of the current execution have been created, guarded by this. */
+    private boolean m_metricsStarted;
+
     /**
      * {@link ModuleInfo} of the wrapped {@link Module}
      */
@@ -167,6 +213,193 @@ public abstract class AbstractIJNodeModel extends NodeModel implements BufferedD
                                                              final ExecutionContext exec)
             throws CanceledExecutionException;
 
+    /**
+     * creates a table that only contains the columns of the cell factory. In contrast to a sequential loop over the
+     * rows the table is created with a {@link ColumnRearranger} such that the rows can be processed by the workers of
+     * the cell factory (the row order is preserved).
+     *
+     * @param inTable the processed table
+     * @param cellFac cell factory that creates the result columns
+     * @param exec
+     * @return table with the result columns of the cell factory
+     * @throws CanceledExecutionException
+     */
+    protected BufferedDataTable createParallelNewTable(final BufferedDataTable inTable,
+                                                       final AbstractIJCellFactory cellFac,
+                                                       final ExecutionContext exec)
+            throws CanceledExecutionException {
+        final DataTableSpec inSpec = inTable.getDataTableSpec();
+        cellFac.setParallelWorkers(m_numWorkers.getIntValue(), inSpec);
+
+        return exec.createColumnRearrangeTable(inTable, createNewTableRearranger(inSpec, cellFac), exec);
+    }
+
+    /**
+     * @param inSpec spec of the processed table
+     * @param cellFac cell factory that creates the result columns
+     * @return a {@link ColumnRearranger} that replaces all input columns by the columns of the cell factory
+     */
+    protected static ColumnRearranger createNewTableRearranger(final DataTableSpec inSpec,
+                                                               final AbstractIJCellFactory cellFac) {
+        final ColumnRearranger rearranger = new ColumnRearranger(inSpec);
+        final int[] inColIndices = new int[inSpec.getNumColumns()];
+        for (int i = 0; i < inColIndices.length; i++) {
+            inColIndices[i] = i;
+        }
+        // remove first, the result columns may have the names of the input columns
+        rearranger.remove(inColIndices);
+        rearranger.append(cellFac);
+        return rearranger;
+    }
+
+    // execution metrics
+
+    /**
+     * @return the metrics of the current execution, the cell factories should record their phases in them (see
+     *         {@link AbstractIJCellFactory#setExecutionMetrics(ExecutionMetrics)})
+     */
+    protected ExecutionMetrics getExecutionMetrics() {
+        return m_metrics;
+    }
+
+    /**
+     * replaces the metrics of the previous execution with new ones if the collection of metrics is enabled.
+     */
+    private synchronized void startExecutionMetrics() {
+        m_metricsStarted = true;
+        m_metrics.unregister();
+        if (m_collectMetrics.getBooleanValue()) {
+            final NodeContext context = NodeContext.getContext();
+            m_metrics = ExecutionMetrics.register(context != null && context.getNodeContainer() != null
+                    ? context.getNodeContainer().getNameWithID() : m_moduleInfo.getTitle());
+        } else {
+            m_metrics = ExecutionMetrics.DISABLED;
+        }
+    }
+
+    /**
+     * creates the metrics of a streamed execution once, all partitions record their phases in the same metrics.
+     *
+     * @return the metrics of the current execution
+     */
+    private synchronized ExecutionMetrics startStreamingExecutionMetrics() {
+        if (!m_metricsStarted) {
+            startExecutionMetrics();
+        }
+        return m_metrics;
+    }
+
+    /**
+     * logs the metrics of the finished execution and publishes them as flow variables.
+     */
+    private void publishExecutionMetrics() {
+        if (!m_metrics.isEnabled()) {
+            return;
+        }
+        LOGGER.info(m_metrics);
+        for (final Map.Entry<String, Double> metric : m_metrics.getSummary().entrySet()) {
+            pushFlowVariableDouble(ExecutionMetrics.FLOW_VARIABLE_PREFIX + metric.getKey(), metric.getValue());
+        }
+    }
+
+    private synchronized void stopExecutionMetrics() {
+        m_metricsStarted = false;
+        m_metrics.unregister();
+        m_metrics = ExecutionMetrics.DISABLED;
+    }
+
+    // streaming
+
+    /**
+     * creates the cell factory that is used for the streamed execution.
+     *
+     * @param inSpec spec of the processed table
+     * @param exec
+     * @return the cell factory that creates the result columns
+     */
+    protected abstract AbstractIJCellFactory createStreamingCellFactory(final DataTableSpec inSpec,
+                                                                        final ExecutionContext exec);
+
+    /**
+     * @param inSpec spec of the processed table
+     * @param cellFac the cell factory that has been created with
+     *            {@link #createStreamingCellFactory(DataTableSpec, ExecutionContext)}
+     * @return the {@link ColumnRearranger} that creates the result table of the streamed execution
+     */
+    protected abstract ColumnRearranger createStreamingRearranger(final DataTableSpec inSpec,
+                                                                  final AbstractIJCellFactory cellFac);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputPortRole[] getInputPortRoles() {
+        final InputPortRole[] roles = new InputPortRole[getNrInPorts()];
+        Arrays.fill(roles, InputPortRole.DISTRIBUTED_STREAMABLE);
+        return roles;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OutputPortRole[] getOutputPortRoles() {
+        final OutputPortRole[] roles = new OutputPortRole[getNrOutPorts()];
+        Arrays.fill(roles, OutputPortRole.DISTRIBUTED);
+        return roles;
+    }
+
+    /**
+     * Rows are processed by the cell factory of {@link #createStreamingCellFactory(DataTableSpec, ExecutionContext)},
+     * with the configured number of parallel workers per partition, and pushed to the output as soon as they are
+     * computed. Modules without input create their single row with
+     * {@link #createResultTable(BufferedDataTable[], ExecutionContext)}. All partitions record their phases in the same
+     * execution metrics, which are only logged but not published as flow variables.
+     */
+    @Override
+    public StreamableOperator createStreamableOperator(final PartitionInfo partitionInfo,
+                                                       final PortObjectSpec[] inSpecs)
+            throws InvalidSettingsException {
+        return new StreamableOperator() {
+
+            @Override
+            public void runFinal(final PortInput[] inputs, final PortOutput[] outputs, final ExecutionContext exec)
+                    throws Exception {
+                final ExecutionMetrics metrics = startStreamingExecutionMetrics();
+                if (inputs.length == 0) {
+                    final RowOutput out = (RowOutput)outputs[0];
+                    for (final DataRow row : createResultTable(new BufferedDataTable[0], exec)[0]) {
+                        out.push(row);
+                    }
+                    out.close();
+                    return;
+                }
+
+                final DataTableSpec inSpec = (DataTableSpec)inSpecs[0];
+                // may throw an invalid settings exception, also binds the row configs to the columns. The configs
+                // are shared by all partitions.
+                synchronized (getModuleItemConfigs()) {
+                    testModuleConfiguration(inSpec);
+                }
+
+                final AbstractIJCellFactory cellFac = createStreamingCellFactory(inSpec, exec);
+                cellFac.setExecutionMetrics(metrics);
+                // partitions run concurrently, each thread configures its modules with its own configs
+                cellFac.setThreadLocalConfigs(inSpec);
+                cellFac.setParallelWorkers(m_numWorkers.getIntValue(), inSpec);
+                createStreamingRearranger(inSpec, cellFac).createStreamableFunction().runFinal(inputs, outputs,
+                                                                                                exec);
+                if (metrics.isEnabled()) {
+                    LOGGER.info(metrics);
+                }
+
+                if (cellFac.getMissingCellCount() > 0) {
+                    setWarningMessage(cellFac.getMissingCellCount() + " cells could not be created");
+                }
+            }
+        };
+    }
+
     /**
      * @return a list of all module item configs the node model uses. This is e.g. used to test the module status
      *         (everything resolved).
@@ -262,7 +495,9 @@ public abstract class AbstractIJNodeModel extends NodeModel implements BufferedD
         }
 
         // ///////////////
+        startExecutionMetrics();
         final BufferedDataTable[] result = createResultTable(inData, exec);
+        publishExecutionMetrics();
 
         // data for the table cell view
         m_data = result[0];
@@ -347,6 +582,7 @@ public abstract class AbstractIJNodeModel extends NodeModel implements BufferedD
         try {
             module = moduleInfo.createModule();
             // inject context
+            IJGateway.loadServicesFor(moduleInfo);
             IJGateway.getImageJContext().inject(module);
 
             // load the dialog matched settings with the dialog settings
@@ -402,6 +638,8 @@ public abstract class AbstractIJNodeModel extends NodeModel implements BufferedD
     @Override
     protected void saveSettingsTo(final NodeSettingsWO settings) {
         m_imageJDlGSettingsModel.saveSettingsTo(settings);
+        m_numWorkers.saveSettingsTo(settings);
+        m_collectMetrics.saveSettingsTo(settings);
 
         //save persistent ModuleItemConfigs
         for (final ModuleItemConfig itemConfig : getModuleItemConfigs()) {
@@ -423,6 +661,14 @@ public abstract class AbstractIJNodeModel extends NodeModel implements BufferedD
     protected void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
         m_imageJDlGSettingsModel.validateSettings(settings);
 
+        // not available in workflows of older versions
+        if (settings.containsKey(CFG_NUM_WORKERS)) {
+            m_numWorkers.validateSettings(settings);
+        }
+        if (settings.containsKey(CFG_COLLECT_METRICS)) {
+            m_collectMetrics.validateSettings(settings);
+        }
+
         //validate persistent ModuleItemConfigs
         for (final ModuleItemConfig itemConfig : getModuleItemConfigs()) {
             if (itemConfig instanceof PersistentModuleItemConfig) {
@@ -443,6 +689,18 @@ public abstract class AbstractIJNodeModel extends NodeModel implements BufferedD
     protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
         m_imageJDlGSettingsModel.loadSettingsFrom(settings);
 
+        if (settings.containsKey(CFG_NUM_WORKERS)) {
+            m_numWorkers.loadSettingsFrom(settings);
+        } else {
+            m_numWorkers.setIntValue(1);
+        }
+
+        if (settings.containsKey(CFG_COLLECT_METRICS)) {
+            m_collectMetrics.loadSettingsFrom(settings);
+        } else {
+            m_collectMetrics.setBooleanValue(false);
+        }
+
         //load persistent ModuleItemConfigs
         for (final ModuleItemConfig itemConfig : getModuleItemConfigs()) {
             if (itemConfig instanceof PersistentModuleItemConfig) {
@@ -461,6 +719,12 @@ public abstract class AbstractIJNodeModel extends NodeModel implements BufferedD
     @Override
     protected void reset() {
         m_data = null;
+        stopExecutionMetrics();
+    }
+
+    @Override
+    protected void onDispose() {
+        stopExecutionMetrics();
     }
 
     @Override
@@ -0,0 +1,216 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright (C) 2003 - 2013
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * --------------------------------------------------------------------- *
+ *
+ */
+package org.knime.knip.imagej2.core.node;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.knime.knip.imagej2.core.imagejdialog.SettingsModelImageJDlg;
+import org.scijava.Context;
+import org.scijava.command.CommandModule;
+import org.scijava.module.Module;
+import org.scijava.module.ModuleInfo;
+import org.scijava.module.ModuleItem;
+import org.scijava.plugin.Parameter;
+import org.scijava.service.Service;
+
+/**
+ * Pool of dialog configured modules of one {@link ModuleInfo}. A module is created, injected and configured with the
+ * ImageJ dialog settings once and afterwards reset to this state whenever it is released, such that only the row
+ * dependent inputs have to be bound for the next row.<br>
+ * <br>
+ * Only commands whose complete state is held in their parameters are reused. Modules that can not be reset (e.g.
+ * scripts, dynamic modules with their own module info, commands with additional instance fields or primitive outputs
+ * that can not be cleared) are created anew for every {@link #acquire()}. The pool is thread safe.
+ *
+ * @see AbstractIJNodeModel#createDialogConfiguredModule(ModuleInfo, SettingsModelImageJDlg)
+ */
+final class ModulePool {
+
+    private final ModuleInfo m_moduleInfo;
+
+    private final SettingsModelImageJDlg m_dialogModuleSettings;
+
+    private final ConcurrentLinkedQueue<Module> m_idleModules;
+
+    /** input values and resolved states of the pooled modules directly after their configuration. */
+    private final Map<Module, Snapshot> m_snapshots;
+
+    /**
+     * @param moduleInfo specification of the pooled modules
+     * @param dialogModuleSettings SettingsModel of the ImageJ dialog that is used to configure new modules
+     */
+    ModulePool(final ModuleInfo moduleInfo, final SettingsModelImageJDlg dialogModuleSettings) {
+        m_moduleInfo = moduleInfo;
+        m_dialogModuleSettings = dialogModuleSettings;
+        m_idleModules = new ConcurrentLinkedQueue<Module>();
+        m_snapshots = Collections.synchronizedMap(new IdentityHashMap<Module, Snapshot>());
+    }
+
+    /**
+     * @return an idle dialog configured module or a new one if no idle module is available.
+     */
+    Module acquire() {
+        final Module idle = m_idleModules.poll();
+        if (idle != null) {
+            return idle;
+        }
+
+        final Module module = AbstractIJNodeModel.createDialogConfiguredModule(m_moduleInfo, m_dialogModuleSettings);
+        if ((module != null) && isReusable(module)) {
+            m_snapshots.put(module, new Snapshot(module));
+        }
+        return module;
+    }
+
+    /**
+     * Resets the module to its dialog configured state and makes it available for the next {@link #acquire()}. Must
+     * only be called after the module has been executed successfully, failed modules have to be {@link #discard(Module)
+     * discarded}.
+     *
+     * @param module a module that has been acquired from this pool
+     */
+    void release(final Module module) {
+        final Snapshot snapshot = m_snapshots.get(module);
+        if ((snapshot != null) && ((CommandModule)module).isCanceled()) {
+            // the canceled state of a command can not be reset
+            discard(module);
+        } else if (snapshot != null) {
+            snapshot.restore(module);
+            m_idleModules.offer(module);
+        }
+    }
+
+    /**
+     * Drops a module that could not be executed successfully. The module is not reused and its snapshot is removed,
+     * such that it can be garbage collected.
+     *
+     * @param module a module that has been acquired from this pool
+     */
+    void discard(final Module module) {
+        m_snapshots.remove(module);
+    }
+
+    private boolean isReusable(final Module module) {
+        // dynamic modules may change their items during execution
+        if ((module.getInfo() != m_moduleInfo) || !(module instanceof CommandModule)) {
+            return false;
+        }
+
+        for (final ModuleItem<?> item : m_moduleInfo.outputs()) {
+            if (item.getType().isPrimitive()) {
+                return false;
+            }
+        }
+        return hasOnlyParameterFields(((CommandModule)module).getCommand().getClass());
+    }
+
+    /**
+     * @param commandClass class of a command
+     * @return true if all instance fields of the command are parameters, i.e. if a {@link Snapshot} resets its complete
+     *         state. The fields of the SciJava base classes (context, plugin info, priority) are set once on creation
+     *         and therefore ignored.
+     */
+    static boolean hasOnlyParameterFields(final Class<?> commandClass) {
+        for (Class<?> c = commandClass; (c != null) && (c != Object.class); c = c.getSuperclass()) {
+            if (c.getName().startsWith("org.scijava.")) {
+                continue;
+            }
+            for (final Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()
+                        && (field.getAnnotation(Parameter.class) == null)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isInjected(final ModuleItem<?> item) {
+        return Service.class.isAssignableFrom(item.getType()) || Context.class.isAssignableFrom(item.getType());
+    }
+
+    /**
+     * state of a module directly after its creation and configuration with the ImageJ dialog settings.
+     */
+    private static final class Snapshot {
+
+        private final Map<String, Object> m_inputs;
+
+        private final Map<String, Boolean> m_resolved;
+
+        Snapshot(final Module module) {
+            m_inputs = new HashMap<String, Object>();
+            m_resolved = new HashMap<String, Boolean>();
+            for (final ModuleItem<?> item : module.getInfo().inputs()) {
+                if (!isInjected(item)) {
+                    m_inputs.put(item.getName(), module.getInput(item.getName()));
+                    m_resolved.put(item.getName(), module.isInputResolved(item.getName()));
+                }
+            }
+        }
+
+        void restore(final Module module) {
+            // release references to the results of the last row
+            for (final ModuleItem<?> item : module.getInfo().outputs()) {
+                module.setOutput(item.getName(), null);
+            }
+
+            for (final Map.Entry<String, Object> input : m_inputs.entrySet()) {
+                module.setInput(input.getKey(), input.getValue());
+                module.setResolved(input.getKey(), m_resolved.get(input.getKey()));
+            }
+        }
+    }
+}
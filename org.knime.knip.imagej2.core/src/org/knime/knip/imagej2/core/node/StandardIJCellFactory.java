@@ -58,12 +58,15 @@ import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataType;
 import org.knime.core.node.ExecutionContext;
+import org.knime.knip.imagej2.core.IJGateway;
 import org.knime.knip.imagej2.core.adapter.IJAdapterProvider;
 import org.knime.knip.imagej2.core.adapter.IJOutputAdapter;
 import org.knime.knip.imagej2.core.adapter.ModuleItemConfig;
 import org.knime.knip.imagej2.core.adapter.ModuleItemDataValueConfig;
 import org.knime.knip.imagej2.core.adapter.ModuleItemRowConfig;
 import org.knime.knip.imagej2.core.imagejdialog.SettingsModelImageJDlg;
+import org.knime.knip.imagej2.core.util.CopyOnAccessPlanarImg;
+import org.knime.knip.imagej2.core.util.ExecutionMetrics;
 import org.scijava.module.MethodCallException;
 import org.scijava.module.Module;
 import org.scijava.module.ModuleInfo;
@@ -81,11 +84,6 @@ public class StandardIJCellFactory extends AbstractIJCellFactory {
 
     private final ModuleInfo m_moduleInfo;
 
-    /**
-     * settings model that contains the values for basic ImageJ dialog parameters.
-     */
-    private final SettingsModelImageJDlg m_dialogModuleSettings;
-
     /**
      * List of all {@link ModuleItemConfig} (similar to a SettingsModel) together with the dialog settings model these
      * objects cover the configuration of all module items (parameters) of the module.
@@ -97,6 +95,11 @@ public class StandardIJCellFactory extends AbstractIJCellFactory {
      */
     private final HashMap<String, Integer> m_identifier2CellID;
 
+    /**
+     * dialog configured modules that are reused for the processed rows.
+     */
+    private final ModulePool m_modulePool;
+
     /**
      * TODO
      *
@@ -111,33 +114,67 @@ public class StandardIJCellFactory extends AbstractIJCellFactory {
                                  final HashMap<String, Integer> identifier2CellID, final ExecutionContext exec) {
         super(exec);
         m_moduleInfo = moduleInfo;
-        m_dialogModuleSettings = dialogModuleSettings;
         m_moduleItemConfigs = moduleItemConfigs;
         m_identifier2CellID = identifier2CellID;
+        m_modulePool = new ModulePool(moduleInfo, dialogModuleSettings);
     }
 
     /**
-     * creates a new module for the processed row, configures it and sets all required DataValues the executes the
-     * module. Supports {@link ModuleItemRowConfig} and {@link ModuleItemDataValueConfig} (uses the identifier2CellID
-     * mapping for configuration of the data values)
+     * takes a dialog configured module from the pool for the processed row, configures it and sets all required
+     * DataValues the executes the module. Supports {@link ModuleItemRowConfig} and {@link ModuleItemDataValueConfig}
+     * (uses the identifier2CellID mapping for configuration of the data values)
      */
     @Override
     public DataCell[] getCells(final DataRow row) {
-        final Module module = AbstractIJNodeModel.createDialogConfiguredModule(m_moduleInfo, m_dialogModuleSettings);
+        final boolean allServices = IJGateway.hasAllServices();
+        final ExecutionMetrics metrics = getExecutionMetrics();
+        final long rowStartNanos = metrics.now();
+        long startBytes = metrics.allocatedBytes();
 
-        configureRowConfigItems(row, module, m_moduleItemConfigs);
+        final Module module = m_modulePool.acquire();
+        final List<ModuleItemConfig> moduleItemConfigs = getWorkerModuleItemConfigs(m_moduleItemConfigs);
+        metrics.add(PHASE_MODULE_CREATION, rowStartNanos, startBytes);
+
+        final long startNanos = metrics.now();
+        startBytes = metrics.allocatedBytes();
         List<DataCell> resCells = null;
+        boolean released = false;
+        boolean retry = false;
         try {
-            configureDataValueConfigItems(row, module, m_moduleItemConfigs, m_identifier2CellID);
-
-            //execute the configured plugin
-            resCells = executeRowModule(module);
-
-        } catch (MethodCallException e) {
-            fireWarning(row.getKey().getString(), e.getCause().getCause().getMessage());
-        } catch (Exception e) {
-            fireWarning(row.getKey().getString(), e.getMessage());
+            configureRowConfigItems(row, module, moduleItemConfigs);
+            try {
+                configureDataValueConfigItems(row, module, moduleItemConfigs, m_identifier2CellID);
+                metrics.add(PHASE_INPUT_ADAPTATION, startNanos, startBytes);
+
+                //execute the configured plugin
+                resCells = executeRowModule(module);
+
+                m_modulePool.release(module);
+                released = true;
+
+            } catch (MethodCallException e) {
+                retry = retryWithAllServices(allServices);
+                if (!retry) {
+                    fireWarning(row.getKey().getString(), e.getCause().getCause().getMessage());
+                }
+            } catch (Exception e) {
+                retry = retryWithAllServices(allServices);
+                if (!retry) {
+                    fireWarning(row.getKey().getString(), e.getMessage());
+                }
+            }
+        } finally {
+            // also drop the images of a failed row, they must not stay referenced by the worker thread
+            CopyOnAccessPlanarImg.sealCreatedImgs();
+            if (!released) {
+                // failed modules are not reused, drop their snapshot
+                m_modulePool.discard(module);
+            }
+        }
+        if (retry) {
+            return getCells(row);
         }
+        metrics.addRow(rowStartNanos);
 
         if (resCells == null) {
             DataCell[] cells = new DataCell[module.getOutputs().size()];
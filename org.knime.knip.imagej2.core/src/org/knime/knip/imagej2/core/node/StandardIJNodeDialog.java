@@ -134,5 +134,7 @@ public class StandardIJNodeDialog extends AbstractIJNodeDialog {
 
         //add the column bindings tab if necessary
         createColumnBindingTab(moduleInfo);
+
+        createExecutionTab();
     }
 }
@@ -179,6 +179,7 @@ public class StandardIJNodeModel extends AbstractIJNodeModel {
                     new StandardIJCellFactory(m_moduleInfo, m_imageJDlGSettingsModel, m_moduleItemConfigs,
                             new HashMap<String, Integer>(), exec);
         }
+        cellFac.setExecutionMetrics(getExecutionMetrics());
 
         if (inData.length == 0) {
             final BufferedDataContainer con = exec.createDataContainer(new DataTableSpec(cellFac.getColumnSpecs()));
@@ -190,6 +191,7 @@ public class StandardIJNodeModel extends AbstractIJNodeModel {
             return new BufferedDataTable[]{con.getTable()};
         } else if (m_appendColumns.getBooleanValue()) {
 
+            cellFac.setParallelWorkers(m_numWorkers.getIntValue(), inData[0].getDataTableSpec());
             final ColumnRearranger rearranger = new ColumnRearranger(inData[0].getDataTableSpec());
             rearranger.append(cellFac);
 
@@ -201,6 +203,14 @@ public class StandardIJNodeModel extends AbstractIJNodeModel {
                 setWarningMessage(cellFac.getMissingCellCount() + " cells could not be created");
             }
 
+            return ret;
+        } else if (m_numWorkers.getIntValue() > 1) {
+            final BufferedDataTable[] ret = {createParallelNewTable(inData[0], cellFac, exec)};
+
+            if (cellFac.getMissingCellCount() > 0) {
+                setWarningMessage(cellFac.getMissingCellCount() + " cells could not be created");
+            }
+
             return ret;
         } else {
             final BufferedDataContainer con = exec.createDataContainer(new DataTableSpec(cellFac.getColumnSpecs()));
@@ -225,6 +235,25 @@ public class StandardIJNodeModel extends AbstractIJNodeModel {
         }
     }
 
+    @Override
+    protected AbstractIJCellFactory createStreamingCellFactory(final DataTableSpec inSpec,
+                                                               final ExecutionContext exec) {
+        return new StandardIJCellFactory(m_moduleInfo, m_imageJDlGSettingsModel, m_moduleItemConfigs,
+                createColumnSelectionIdentifier2IDMapping(inSpec), exec);
+    }
+
+    @Override
+    protected ColumnRearranger createStreamingRearranger(final DataTableSpec inSpec,
+                                                         final AbstractIJCellFactory cellFac) {
+        if (m_appendColumns.getBooleanValue()) {
+            final ColumnRearranger rearranger = new ColumnRearranger(inSpec);
+            rearranger.append(cellFac);
+            return rearranger;
+        } else {
+            return createNewTableRearranger(inSpec, cellFac);
+        }
+    }
+
     @Override
     protected List<ModuleItemConfig> getModuleItemConfigs() {
         return m_moduleItemConfigs;
@@ -58,11 +58,14 @@ import org.knime.core.data.DataRow;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValue;
 import org.knime.core.node.ExecutionContext;
+import org.knime.knip.imagej2.core.IJGateway;
 import org.knime.knip.imagej2.core.adapter.IJAdapterProvider;
 import org.knime.knip.imagej2.core.adapter.IJOutputAdapter;
 import org.knime.knip.imagej2.core.adapter.ModuleItemConfig;
 import org.knime.knip.imagej2.core.adapter.ModuleItemDataValueConfig;
 import org.knime.knip.imagej2.core.imagejdialog.SettingsModelImageJDlg;
+import org.knime.knip.imagej2.core.util.CopyOnAccessPlanarImg;
+import org.knime.knip.imagej2.core.util.ExecutionMetrics;
 import org.scijava.module.MethodCallException;
 import org.scijava.module.Module;
 import org.scijava.module.ModuleInfo;
@@ -82,9 +85,6 @@ public class ValueToCellIJCellFactory extends AbstractIJCellFactory {
 
     private final ModuleInfo m_moduleInfo;
 
-    //TODO remove the lock if the concurrency error in DefaultAutoscaleService gets fixed
-    private static Integer lock = new Integer(4);
-
     /**
      * indices of the columns that have been selected as input values (as the one input value process one after the
      * other).
@@ -96,11 +96,6 @@ public class ValueToCellIJCellFactory extends AbstractIJCellFactory {
      */
     private final String[] m_colNames;
 
-    /**
-     * settings model that contains the values for basic ImageJ dialog parameters.
-     */
-    private final SettingsModelImageJDlg m_dialogModuleSettings;
-
     /**
      * {@link ModuleItemConfig} (similar to a settings model) of the one module input.
      */
@@ -112,6 +107,11 @@ public class ValueToCellIJCellFactory extends AbstractIJCellFactory {
      */
     private final List<ModuleItemConfig> m_moduleItemConfigs;
 
+    /**
+     * dialog configured modules that are reused for the processed values.
+     */
+    private final ModulePool m_modulePool;
+
     /**
      * There is one ImageJ input adapter that can be configured with valueConfig. The module can be used to process
      * multiple columns (multiple executions per row) in this case the input adapter is configured multiple times. The
@@ -120,7 +120,7 @@ public class ValueToCellIJCellFactory extends AbstractIJCellFactory {
      * or b.) with moduleItemConfigs from the column binding tab.
      *
      * @param moduleInfo
-     * @param dialogModuleSettings {@link #m_dialogModuleSettings}
+     * @param dialogModuleSettings settings model that contains the values for basic ImageJ dialog parameters
      * @param moduleItemConfigs {@link #m_moduleItemConfigs}
      * @param valueConfig {@link #m_valueConfig}
      * @param selectedColIndices {@link #m_selectedColIndices}
@@ -134,55 +134,85 @@ public class ValueToCellIJCellFactory extends AbstractIJCellFactory {
                                     final String[] colNames, final ExecutionContext exec) {
         super(exec);
         m_moduleInfo = moduleInfo;
-        m_dialogModuleSettings = dialogModuleSettings;
         m_moduleItemConfigs = moduleItemConfigs;
         m_valueConfig = valueConfig;
         m_selectedColIndices = selectedColIndices;
         m_colNames = colNames;
+        m_modulePool = new ModulePool(moduleInfo, dialogModuleSettings);
     }
 
     /**
-     * creates a (multiple) new module(s) for the processed row, configures it and sets all required DataValues then
-     * executes the module. The {@link #m_valueConfig} is configured using the DataValues from the
-     * {@link #m_selectedColIndices}. Additionally basic ImageJ dialog parameters can be resolved.
+     * takes (multiple) dialog configured module(s) from the pool for the processed row, configures it and sets all
+     * required DataValues then executes the module. The {@link #m_valueConfig} is configured using the DataValues from
+     * the {@link #m_selectedColIndices}. Additionally basic ImageJ dialog parameters can be resolved.
      */
     @SuppressWarnings("javadoc")
     @Override
     public DataCell[] getCells(final DataRow row) {
+        final boolean allServices = IJGateway.hasAllServices();
+        final ExecutionMetrics metrics = getExecutionMetrics();
+        final long rowStartNanos = metrics.now();
         final List<DataCell> resCells = new ArrayList<DataCell>();
+        final List<ModuleItemConfig> moduleItemConfigs = getWorkerModuleItemConfigs(m_moduleItemConfigs);
+        final ModuleItemDataValueConfig valueConfig =
+                (ModuleItemDataValueConfig)moduleItemConfigs.get(m_moduleItemConfigs.indexOf(m_valueConfig));
         try {
             for (int i = 0; i < m_selectedColIndices.length; i++) {
                 if (row.getCell(m_selectedColIndices[i]).isMissing()) {
                     resCells.add(DataType.getMissingCell());
                 } else {
-                    final Module module =
-                            AbstractIJNodeModel.createDialogConfiguredModule(m_moduleInfo, m_dialogModuleSettings);
-                    //data value config
-                    m_valueConfig.setConfigurationData(new DataValue[]{row.getCell(m_selectedColIndices[i])});
-                    m_valueConfig.resolveHandledModuleItems(module, false);
-
-                    synchronized (lock) {
-                        m_valueConfig.configureModuleItem(module);
-                        ModuleItem<?> item = m_valueConfig.getItem();
+                    long startNanos = metrics.now();
+                    long startBytes = metrics.allocatedBytes();
+                    final Module module = m_modulePool.acquire();
+                    metrics.add(PHASE_MODULE_CREATION, startNanos, startBytes);
+
+                    boolean released = false;
+                    try {
+                        startNanos = metrics.now();
+                        startBytes = metrics.allocatedBytes();
+                        //data value config
+                        valueConfig.setConfigurationData(new DataValue[]{row.getCell(m_selectedColIndices[i])});
+                        valueConfig.resolveHandledModuleItems(module, false);
+
+                        valueConfig.configureModuleItem(module);
+                        ModuleItem<?> item = valueConfig.getItem();
                         item.callback(module);
-                    }
-
-                    //remaining config only for row configs => column binding tab yes
-                    //valueConfig no
-                    configureRowConfigItems(row, module, m_moduleItemConfigs);
 
-                    //execute - and add one data cell per iteration
-                    DataCell dataCell = executeRowModule(module).get(0);
-                    resCells.add(dataCell);
+                        //remaining config only for row configs => column binding tab yes
+                        //valueConfig no
+                        configureRowConfigItems(row, module, moduleItemConfigs);
+                        metrics.add(PHASE_INPUT_ADAPTATION, startNanos, startBytes);
+
+                        //execute - and add one data cell per iteration
+                        DataCell dataCell = executeRowModule(module).get(0);
+                        resCells.add(dataCell);
+
+                        m_modulePool.release(module);
+                        released = true;
+                    } finally {
+                        // also drop the images of a failed row, they must not stay referenced by the worker thread
+                        CopyOnAccessPlanarImg.sealCreatedImgs();
+                        if (!released) {
+                            // failed modules are not reused, drop their snapshot
+                            m_modulePool.discard(module);
+                        }
+                    }
                 }
             }
 
         } catch (MethodCallException e) {
+            if (retryWithAllServices(allServices)) {
+                return getCells(row);
+            }
             fireWarning(row.getKey().getString(), e.getCause().getCause().getMessage());
 
         } catch (Exception e) {
+            if (retryWithAllServices(allServices)) {
+                return getCells(row);
+            }
             fireWarning(row.getKey().getString(), e.getMessage());
         }
+        metrics.addRow(rowStartNanos);
 
         if (resCells.size() != m_selectedColIndices.length) {
             DataCell[] cells = new DataCell[m_selectedColIndices.length];
@@ -179,9 +179,12 @@ public class ValueToCellIJNodeModel extends AbstractIJNodeModel {
         final int[] selectedColIndices = getSelectedColumnIndices(inTable.getDataTableSpec());
         final ValueToCellIJCellFactory cellFac = new ValueToCellIJCellFactory(m_moduleInfo, m_imageJDlGSettingsModel,
                 m_moduleItemConfigs, m_valueConfig, selectedColIndices, createSpecNames(inTable.getSpec()), exec);
+        cellFac.setExecutionMetrics(getExecutionMetrics());
 
         exec.setProgress("Processing ...");
-        if (m_colCreationMode.getStringValue().equals(COL_CREATION_MODES[0])) {
+        if (m_colCreationMode.getStringValue().equals(COL_CREATION_MODES[0]) && (m_numWorkers.getIntValue() > 1)) {
+            res = new BufferedDataTable[]{createParallelNewTable(inTable, cellFac, exec)};
+        } else if (m_colCreationMode.getStringValue().equals(COL_CREATION_MODES[0])) {
 
             final RowIterator it = inTable.iterator();
             final BufferedDataContainer con = exec.createDataContainer(new DataTableSpec(cellFac.getColumnSpecs()));
@@ -199,6 +202,7 @@ public class ValueToCellIJNodeModel extends AbstractIJNodeModel {
             con.close();
             res = new BufferedDataTable[]{con.getTable()};
         } else {
+            cellFac.setParallelWorkers(m_numWorkers.getIntValue(), inTable.getDataTableSpec());
             final ColumnRearranger colRearranger = new ColumnRearranger(inTable.getDataTableSpec());
             if (m_colCreationMode.getStringValue().equals(COL_CREATION_MODES[1])) {
                 colRearranger.append(cellFac);
@@ -384,6 +388,29 @@ public class ValueToCellIJNodeModel extends AbstractIJNodeModel {
         return ret;
     }
 
+    @Override
+    protected AbstractIJCellFactory createStreamingCellFactory(final DataTableSpec inSpec,
+                                                               final ExecutionContext exec) {
+        return new ValueToCellIJCellFactory(m_moduleInfo, m_imageJDlGSettingsModel, m_moduleItemConfigs,
+                m_valueConfig, getSelectedColumnIndices(inSpec), createSpecNames(inSpec), exec);
+    }
+
+    @Override
+    protected ColumnRearranger createStreamingRearranger(final DataTableSpec inSpec,
+                                                         final AbstractIJCellFactory cellFac) {
+        if (m_colCreationMode.getStringValue().equals(COL_CREATION_MODES[0])) {
+            return createNewTableRearranger(inSpec, cellFac);
+        }
+
+        final ColumnRearranger colRearranger = new ColumnRearranger(inSpec);
+        if (m_colCreationMode.getStringValue().equals(COL_CREATION_MODES[1])) {
+            colRearranger.append(cellFac);
+        } else {
+            colRearranger.replace(cellFac, getSelectedColumnIndices(inSpec));
+        }
+        return colRearranger;
+    }
+
     @Override
     protected List<ModuleItemConfig> getModuleItemConfigs() {
         return m_moduleItemConfigs;
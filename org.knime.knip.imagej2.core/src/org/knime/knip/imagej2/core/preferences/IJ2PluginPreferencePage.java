@@ -64,6 +64,7 @@ import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.List;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
+import org.knime.knip.imagej2.core.KNIMEIMAGEJPlugin;
 
 /**
  * Preference page of the KNIME ImageJ plugin allows to install ImageJ plugins from local jar files. This class is
@@ -126,6 +127,9 @@ public class IJ2PluginPreferencePage extends PreferencePage implements IWorkbenc
         data = new GridData(GridData.FILL_HORIZONTAL);
         data.verticalSpan = 20;
         messageLabel.setLayoutData(data);
+        final Composite minimalContext = createMinimalContextComp(contentComposite);
+        data = new GridData(GridData.FILL_HORIZONTAL);
+        minimalContext.setLayoutData(data);
 
         contentComposite.pack();
 
@@ -298,6 +302,41 @@ public class IJ2PluginPreferencePage extends PreferencePage implements IWorkbenc
         return contentComposite;
     }
 
+    /**
+     * @param parent
+     * @return composite[minimal context check box]
+     */
+    private Composite createMinimalContextComp(final Composite parent) {
+        final Composite contentComposite = new Composite(parent, SWT.NULL);
+
+        final GridLayout layout = new GridLayout();
+        layout.numColumns = 1;
+        layout.marginHeight = 0;
+        layout.marginWidth = 0;
+        contentComposite.setLayout(layout);
+        contentComposite.setFont(parent.getFont());
+
+        final Button minimalContext = new Button(contentComposite, SWT.CHECK);
+        minimalContext.setText("start ImageJ with the services for headless execution only"
+                + " (others are loaded on demand)");
+        minimalContext.setSelection(KNIMEIMAGEJPlugin.useMinimalContext());
+        minimalContext.addSelectionListener(new SelectionListener() {
+
+            @Override
+            public void widgetSelected(final SelectionEvent e) {
+                KNIMEIMAGEJPlugin.getDefault().getPreferenceStore()
+                        .setValue(KNIMEIMAGEJPlugin.MINIMAL_CONTEXT, minimalContext.getSelection());
+                setMessage("to complete please restart KNIME", INFORMATION);
+            }
+
+            @Override
+            public void widgetDefaultSelected(final SelectionEvent e) {
+            }
+        });
+
+        return contentComposite;
+    }
+
     @Override
     public void init(final IWorkbench workbench) {
 
@@ -90,6 +90,7 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
             store.setDefault(KNIMEIMAGEJPlugin.PLUGIN_FOLDER_PATH, "");
         }
 
+        store.setDefault(KNIMEIMAGEJPlugin.MINIMAL_CONTEXT, false);
     }
 
 }
@@ -0,0 +1,224 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright (C) 2003 - 2013
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * --------------------------------------------------------------------- *
+ *
+ */
+package org.knime.knip.imagej2.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.knime.core.node.KNIMEConstants;
+import org.knime.knip.base.KNIPConstants;
+import org.knime.knip.base.exceptions.KNIPRuntimeException;
+import org.knime.knip.core.ThreadPoolExecutorService;
+
+/**
+ * Process-wide scheduler for the plane-wise conversions in {@link ImgToIJ} and {@link IJToImg}. All conversions share
+ * one bounded pool. The planes of an image are split into at most as many contiguous chunks as there are cores, the
+ * last chunk is always processed by the calling thread. Images with less than {@link #INLINE_THRESHOLD} pixels are
+ * converted on the calling thread only.<br>
+ * <br>
+ * The class is public as it is shared with the isolated ImageJ1 macro runtimes. They load {@link ImgToIJ} and
+ * {@link IJToImg} with their own class loader, which can't access package private members of this class.
+ */
+public final class ConversionScheduler {
+
+    /**
+     * Images with less pixels are converted on the calling thread.
+     */
+    static final long INLINE_THRESHOLD = 512 * 512;
+
+    private static final int NUM_CORES = Runtime.getRuntime().availableProcessors();
+
+    private static ExecutorService m_service;
+
+    /**
+     * Task converting a contiguous range of planes.
+     */
+    public interface PlaneRangeTask {
+
+        /**
+         * @param from index of the first plane (inclusive)
+         * @param to index of the last plane (exclusive)
+         * @throws Exception if the conversion fails
+         */
+        void run(int from, int to) throws Exception;
+    }
+
+    private ConversionScheduler() {
+        // utility class
+    }
+
+    private static synchronized ExecutorService getService() {
+        if (m_service == null) {
+            m_service = new ThreadPoolExecutorService(
+                    KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(KNIPConstants.THREADS_PER_NODE));
+        }
+        return m_service;
+    }
+
+    /**
+     * Runs the given task over all planes, split into chunks which are processed concurrently. Returns when all
+     * planes are processed.
+     *
+     * @param numPlanes number of planes
+     * @param planeSize number of pixels per plane
+     * @param task the conversion task
+     */
+    public static void forEachPlaneRange(final int numPlanes, final long planeSize, final PlaneRangeTask task) {
+        final int numChunks = Math.min(numPlanes, NUM_CORES);
+        if (numChunks <= 1 || (numPlanes * planeSize) < INLINE_THRESHOLD) {
+            runChunk(task, 0, numPlanes);
+            return;
+        }
+
+        final List<Chunk> chunks = new ArrayList<Chunk>(numChunks - 1);
+        final int chunkSize = numPlanes / numChunks;
+        final int remainder = numPlanes % numChunks;
+
+        boolean completed = false;
+        try {
+            int from = 0;
+            for (int c = 0; c < numChunks - 1; c++) {
+                final int end = from + chunkSize + (c < remainder ? 1 : 0);
+                final Chunk chunk = new Chunk(task, from, end);
+                chunk.m_future = getService().submit(chunk);
+                chunks.add(chunk);
+                from = end;
+            }
+
+            // last chunk on the calling thread
+            runChunk(task, from, numPlanes);
+
+            for (final Chunk chunk : chunks) {
+                try {
+                    chunk.m_future.get();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new KNIPRuntimeException("Conversion of image planes has been interrupted.", e);
+                } catch (final ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException)e.getCause();
+                    }
+                    throw new KNIPRuntimeException("Conversion of image planes failed.", e.getCause());
+                }
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                // no chunk may still write into the images once the failure is propagated
+                for (final Chunk chunk : chunks) {
+                    chunk.cancelOrAwait();
+                }
+            }
+        }
+    }
+
+    private static void runChunk(final PlaneRangeTask task, final int from, final int to) {
+        try {
+            task.run(from, to);
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new KNIPRuntimeException("Conversion of image planes failed.", e);
+        }
+    }
+
+    /**
+     * Chunk of planes processed by the pool. A chunk is either started by a pool thread or cancelled by the calling
+     * thread, never both.
+     */
+    private static final class Chunk implements Callable<Void> {
+
+        private final PlaneRangeTask m_task;
+
+        private final int m_from;
+
+        private final int m_to;
+
+        private final AtomicBoolean m_claimed = new AtomicBoolean();
+
+        private Future<Void> m_future;
+
+        Chunk(final PlaneRangeTask task, final int from, final int to) {
+            m_task = task;
+            m_from = from;
+            m_to = to;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            if (m_claimed.compareAndSet(false, true)) {
+                m_task.run(m_from, m_to);
+            }
+            return null;
+        }
+
+        /**
+         * Prevents the chunk from being started or waits until it is finished. Stops waiting if the calling thread is
+         * interrupted.
+         */
+        void cancelOrAwait() {
+            if (m_claimed.compareAndSet(false, true)) {
+                m_future.cancel(false);
+                return;
+            }
+            try {
+                m_future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (final ExecutionException e) {
+                // the conversion fails anyway
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright (C) 2003 - 2013
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * --------------------------------------------------------------------- *
+ *
+ */
+package org.knime.knip.imagej2.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.knime.knip.base.data.img.ImgPlusValue;
+
+import net.imagej.ImgPlus;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.RealType;
+
+/**
+ * {@link PlanarImg} that starts with the planes of another {@link PlanarImg} and replaces a plane by a private copy
+ * the first time it is accessed, e.g. by a cursor moving into the plane or {@link #getPlane(int)}. Planes that are
+ * never touched are never copied, such that plugins working in-place on a few planes of a large image only need
+ * memory in proportion to the planes they process.<br>
+ * <br>
+ * The types of ImgLib2 don't tell reads from writes, hence a plane is already copied on its first read. Once the
+ * processing is done the image can be {@link #seal() sealed}, afterwards it reads the untouched planes of the source
+ * directly, e.g. while the result is written to a cell.
+ *
+ * @param <T> pixel type
+ * @param <A> access of the planes
+ */
+public final class CopyOnAccessPlanarImg<T extends NativeType<T>, A extends ArrayDataAccess<A>>
+        extends PlanarImg<T, A> {
+
+    /** images created by the current thread which have not been sealed yet. */
+    private static final ThreadLocal<List<CopyOnAccessPlanarImg<?, ?>>> UNSEALED =
+            new ThreadLocal<List<CopyOnAccessPlanarImg<?, ?>>>() {
+                @Override
+                protected List<CopyOnAccessPlanarImg<?, ?>> initialValue() {
+                    return new ArrayList<CopyOnAccessPlanarImg<?, ?>>();
+                }
+            };
+
+    /** 1 if the plane at the index is a private copy. */
+    private final AtomicIntegerArray m_copied;
+
+    private volatile boolean m_sealed;
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private CopyOnAccessPlanarImg(final PlanarImg<T, A> source) {
+        super(planes(source), dimensions(source), source.getEntitiesPerPixel());
+        m_copied = new AtomicIntegerArray(numSlices());
+        setLinkedType((T)((NativeType)source.firstElement()).getNativeTypeFactory().createLinkedType(this));
+    }
+
+    private static <A extends ArrayDataAccess<A>> List<A> planes(final PlanarImg<?, A> source) {
+        final List<A> planes = new ArrayList<A>(source.numSlices());
+        for (int i = 0; i < source.numSlices(); i++) {
+            planes.add(source.getPlane(i));
+        }
+        return planes;
+    }
+
+    private static long[] dimensions(final PlanarImg<?, ?> source) {
+        final long[] dims = new long[source.numDimensions()];
+        source.dimensions(dims);
+        return dims;
+    }
+
+    /**
+     * Creates the image for a module item that is input and output, i.e. may be modified by the module. Images that
+     * are stored as {@link PlanarImg} are wrapped by a {@link CopyOnAccessPlanarImg} which has to be
+     * {@link #sealCreatedImgs() sealed} by the same thread after the module has been executed, all others are copied.
+     *
+     * @param value the input value
+     * @return an image whose modification doesn't change the given value
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static <T extends RealType<T>> ImgPlus<T> createInOutImgPlus(final ImgPlusValue<T> value) {
+        final ImgPlus<T> source = value.getImgPlus();
+        if (!(source.getImg() instanceof PlanarImg) || source.size() == 0) {
+            return value.getImgPlusCopy();
+        }
+
+        final CopyOnAccessPlanarImg img = new CopyOnAccessPlanarImg((PlanarImg)source.getImg());
+        UNSEALED.get().add(img);
+
+        final ImgPlus<T> res = new ImgPlus<T>(img, source);
+        res.setSource(source.getSource());
+        return res;
+    }
+
+    /**
+     * Seals all images created with {@link #createInOutImgPlus(ImgPlusValue)} by the current thread since the last
+     * call.
+     */
+    public static void sealCreatedImgs() {
+        final List<CopyOnAccessPlanarImg<?, ?>> unsealed = UNSEALED.get();
+        if (unsealed.isEmpty()) {
+            return;
+        }
+        for (final CopyOnAccessPlanarImg<?, ?> img : unsealed) {
+            img.seal();
+        }
+        unsealed.clear();
+    }
+
+    /**
+     * Stops copying planes, untouched planes are read from the source from now on. Must only be called once the
+     * image isn't modified anymore.
+     */
+    public void seal() {
+        m_sealed = true;
+    }
+
+    /**
+     * @return the number of planes that have been copied so far
+     */
+    public int numCopiedPlanes() {
+        int copied = 0;
+        for (int i = 0; i < m_copied.length(); i++) {
+            copied += m_copied.get(i);
+        }
+        return copied;
+    }
+
+    @Override
+    public A update(final Object c) {
+        ensureCopied(((PlanarContainerSampler)c).getCurrentSliceIndex());
+        return super.update(c);
+    }
+
+    @Override
+    public A getPlane(final int no) {
+        ensureCopied(no);
+        return super.getPlane(no);
+    }
+
+    private void ensureCopied(final int no) {
+        if (m_sealed || no < 0 || no >= m_copied.length() || m_copied.get(no) == 1) {
+            return;
+        }
+        synchronized (this) {
+            if (m_copied.get(no) == 0) {
+                final A plane = super.getPlane(no);
+                final A copy = plane.createArray(plane.getArrayLength());
+                System.arraycopy(plane.getCurrentStorageArray(), 0, copy.getCurrentStorageArray(), 0,
+                                 plane.getArrayLength());
+                setPlane(no, copy);
+                m_copied.set(no, 1);
+            }
+        }
+    }
+}
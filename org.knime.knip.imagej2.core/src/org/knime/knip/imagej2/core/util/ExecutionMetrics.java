@@ -0,0 +1,390 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright (C) 2003 - 2013
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * --------------------------------------------------------------------- *
+ *
+ */
+package org.knime.knip.imagej2.core.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Collects the time and the allocated memory of the execution phases of a node (e.g. module creation, input
+ * adaptation, module execution, output adaptation) together with a latency histogram of the processed rows. Phases
+ * are identified by name and may be recorded concurrently by several worker threads.<br>
+ * <br>
+ * Metrics created with {@link #register(String)} are exposed as MXBean in the domain {@value #JMX_DOMAIN} until they
+ * are {@link #unregister() unregistered}. {@link #DISABLED} does not record anything, its {@link #now()} and
+ * {@link #allocatedBytes()} don't query any clock such that instrumented code runs at full speed.
+ */
+public final class ExecutionMetrics implements ExecutionMetricsMXBean {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ExecutionMetrics.class);
+
+    /** domain of the object names the metrics are registered with. */
+    public static final String JMX_DOMAIN = "org.knime.knip.imagej";
+
+    /** prefix of the flow variables nodes publish the {@link #getSummary() summary} with. */
+    public static final String FLOW_VARIABLE_PREFIX = "ij_metrics_";
+
+    /** metrics that don't record anything. */
+    public static final ExecutionMetrics DISABLED = new ExecutionMetrics(null);
+
+    /** sub-buckets per power of two of the row latency histogram. */
+    private static final int BUCKETS_PER_OCTAVE = 4;
+
+    /** covers latencies of up to 2^40 microseconds. */
+    private static final int NUM_BUCKETS = 40 * BUCKETS_PER_OCTAVE;
+
+    private static final AtomicInteger ID = new AtomicInteger();
+
+    private final String m_nodeName;
+
+    private final Map<String, Phase> m_phases = new ConcurrentHashMap<String, Phase>();
+
+    /** phase names in the order of their first occurrence. */
+    private final List<String> m_phaseNames = new CopyOnWriteArrayList<String>();
+
+    private final AtomicLongArray m_rowLatencies = new AtomicLongArray(NUM_BUCKETS);
+
+    private final LongAdder m_rows = new LongAdder();
+
+    private ObjectName m_objectName;
+
+    private static final class Phase {
+
+        private final LongAdder m_count = new LongAdder();
+
+        private final LongAdder m_nanos = new LongAdder();
+
+        private final LongAdder m_bytes = new LongAdder();
+    }
+
+    private ExecutionMetrics(final String nodeName) {
+        m_nodeName = nodeName;
+    }
+
+    /**
+     * Creates new metrics and registers them at the platform MBean server. Failures of the registration are logged,
+     * the returned metrics collect data nevertheless.
+     *
+     * @param nodeName name of the node, part of the object name
+     * @return the new metrics
+     */
+    public static ExecutionMetrics register(final String nodeName) {
+        final ExecutionMetrics metrics = new ExecutionMetrics(nodeName);
+        try {
+            final ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=ExecutionMetrics,node="
+                    + ObjectName.quote(nodeName) + ",id=" + ID.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName);
+            metrics.m_objectName = objectName;
+        } catch (final JMException e) {
+            LOGGER.debug("Execution metrics of " + nodeName + " could not be registered: " + e.getMessage(), e);
+        }
+        return metrics;
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server, does nothing if they aren't registered.
+     */
+    public synchronized void unregister() {
+        if (m_objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(m_objectName);
+        } catch (final JMException e) {
+            LOGGER.debug("Execution metrics of " + m_nodeName + " could not be unregistered: " + e.getMessage(), e);
+        }
+        m_objectName = null;
+    }
+
+    /**
+     * @return true if the metrics record anything
+     */
+    public boolean isEnabled() {
+        return m_nodeName != null;
+    }
+
+    /**
+     * @return the current time in nanoseconds, 0 if the metrics are disabled
+     */
+    public long now() {
+        return isEnabled() ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @return the bytes allocated by the current thread so far, 0 if the metrics are disabled or the JVM doesn't
+     *         measure allocations
+     */
+    public long allocatedBytes() {
+        return isEnabled() ? Allocations.currentThread() : 0;
+    }
+
+    /**
+     * Records one occurrence of a phase that started at the given time and allocation count of the current thread.
+     *
+     * @param phase name of the phase
+     * @param startNanos result of {@link #now()} at the start of the phase
+     * @param startBytes result of {@link #allocatedBytes()} at the start of the phase
+     */
+    public void add(final String phase, final long startNanos, final long startBytes) {
+        if (!isEnabled()) {
+            return;
+        }
+        final long nanos = System.nanoTime() - startNanos;
+        final long bytes = Allocations.currentThread() - startBytes;
+
+        Phase p = m_phases.get(phase);
+        if (p == null) {
+            synchronized (m_phases) {
+                p = m_phases.get(phase);
+                if (p == null) {
+                    p = new Phase();
+                    m_phases.put(phase, p);
+                    m_phaseNames.add(phase);
+                }
+            }
+        }
+        p.m_count.increment();
+        p.m_nanos.add(nanos);
+        p.m_bytes.add(bytes);
+    }
+
+    /**
+     * Records a processed row.
+     *
+     * @param startNanos result of {@link #now()} at the start of the row
+     */
+    public void addRow(final long startNanos) {
+        if (!isEnabled()) {
+            return;
+        }
+        final long micros = (System.nanoTime() - startNanos) / 1000;
+        final int bucket = micros <= 1 ? 0
+                : (int)Math.min(NUM_BUCKETS - 1, (Math.log(micros) / Math.log(2)) * BUCKETS_PER_OCTAVE);
+        m_rowLatencies.incrementAndGet(bucket);
+        m_rows.increment();
+    }
+
+    /**
+     * @return all metrics as name value pairs, suitable e.g. as flow variables
+     */
+    public Map<String, Double> getSummary() {
+        final Map<String, Double> summary = new LinkedHashMap<String, Double>();
+        summary.put("rows", (double)getRowCount());
+        final String[] names = getPhaseNames();
+        final double[] millis = getPhaseMillis();
+        final long[] bytes = getPhaseAllocatedBytes();
+        for (int i = 0; i < names.length; i++) {
+            summary.put(names[i] + "_ms", millis[i]);
+            summary.put(names[i] + "_allocated_mb", bytes[i] < 0 ? -1 : bytes[i] / (1024d * 1024d));
+        }
+        summary.put("row_latency_p50_ms", getRowLatencyP50Millis());
+        summary.put("row_latency_p95_ms", getRowLatencyP95Millis());
+        summary.put("row_latency_p99_ms", getRowLatencyP99Millis());
+        return summary;
+    }
+
+    @Override
+    public String getNodeName() {
+        return m_nodeName;
+    }
+
+    @Override
+    public long getRowCount() {
+        return m_rows.sum();
+    }
+
+    @Override
+    public String[] getPhaseNames() {
+        return m_phaseNames.toArray(new String[0]);
+    }
+
+    @Override
+    public long[] getPhaseCounts() {
+        final List<Phase> phases = getPhases();
+        final long[] counts = new long[phases.size()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = phases.get(i).m_count.sum();
+        }
+        return counts;
+    }
+
+    @Override
+    public double[] getPhaseMillis() {
+        final List<Phase> phases = getPhases();
+        final double[] millis = new double[phases.size()];
+        for (int i = 0; i < millis.length; i++) {
+            millis[i] = phases.get(i).m_nanos.sum() / 1e6;
+        }
+        return millis;
+    }
+
+    @Override
+    public long[] getPhaseAllocatedBytes() {
+        final List<Phase> phases = getPhases();
+        final long[] bytes = new long[phases.size()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = Allocations.isSupported() ? phases.get(i).m_bytes.sum() : -1;
+        }
+        return bytes;
+    }
+
+    @Override
+    public double getRowLatencyP50Millis() {
+        return getRowLatencyPercentile(0.5);
+    }
+
+    @Override
+    public double getRowLatencyP95Millis() {
+        return getRowLatencyPercentile(0.95);
+    }
+
+    @Override
+    public double getRowLatencyP99Millis() {
+        return getRowLatencyPercentile(0.99);
+    }
+
+    /**
+     * @return the upper bound of the histogram bucket that contains the given percentile, 0 if no rows are recorded
+     */
+    private double getRowLatencyPercentile(final double percentile) {
+        long total = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            total += m_rowLatencies.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        final long rank = (long)Math.ceil(percentile * total);
+        long seen = 0;
+        int bucket = 0;
+        for (; bucket < NUM_BUCKETS - 1; bucket++) {
+            seen += m_rowLatencies.get(bucket);
+            if (seen >= rank) {
+                break;
+            }
+        }
+        return Math.pow(2, (bucket + 1) / (double)BUCKETS_PER_OCTAVE) / 1000;
+    }
+
+    private List<Phase> getPhases() {
+        final List<Phase> phases = new ArrayList<Phase>();
+        for (final String name : m_phaseNames) {
+            phases.add(m_phases.get(name));
+        }
+        return phases;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("Execution metrics of ").append(m_nodeName).append(':');
+        for (final Map.Entry<String, Double> e : getSummary().entrySet()) {
+            sb.append(' ').append(e.getKey()).append('=').append(String.format("%.3f", e.getValue()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Access to the per thread allocation counter of HotSpot based JVMs. The counter is not part of the Java SE API,
+     * it is looked up reflectively such that other JVMs only lose the allocation metrics.
+     */
+    private static final class Allocations {
+
+        private static final MethodHandle ALLOCATED_BYTES = lookupAllocatedBytes();
+
+        private static MethodHandle lookupAllocatedBytes() {
+            final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            try {
+                final Class<?> type = Class.forName("com.sun.management.ThreadMXBean");
+                if (!type.isInstance(bean)
+                        || !(Boolean)type.getMethod("isThreadAllocatedMemorySupported").invoke(bean)
+                        || !(Boolean)type.getMethod("isThreadAllocatedMemoryEnabled").invoke(bean)) {
+                    return null;
+                }
+                return MethodHandles.publicLookup()
+                        .findVirtual(type, "getThreadAllocatedBytes", MethodType.methodType(long.class, long.class))
+                        .bindTo(bean);
+            } catch (final ReflectiveOperationException | RuntimeException | LinkageError e) {
+                return null;
+            }
+        }
+
+        static boolean isSupported() {
+            return ALLOCATED_BYTES != null;
+        }
+
+        static long currentThread() {
+            if (ALLOCATED_BYTES == null) {
+                return 0;
+            }
+            try {
+                return (long)ALLOCATED_BYTES.invokeExact(Thread.currentThread().getId());
+            } catch (final Throwable e) {
+                return 0;
+            }
+        }
+    }
+}
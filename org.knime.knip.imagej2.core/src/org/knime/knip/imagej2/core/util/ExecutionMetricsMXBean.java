@@ -0,0 +1,101 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright (C) 2003 - 2013
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * --------------------------------------------------------------------- *
+ *
+ */
+package org.knime.knip.imagej2.core.util;
+
+/**
+ * Management interface of the {@link ExecutionMetrics} of a node execution. All arrays are indexed like
+ * {@link #getPhaseNames()}.
+ */
+public interface ExecutionMetricsMXBean {
+
+    /**
+     * @return name of the node the metrics are collected for
+     */
+    String getNodeName();
+
+    /**
+     * @return number of processed rows
+     */
+    long getRowCount();
+
+    /**
+     * @return names of the recorded phases in the order of their first occurrence
+     */
+    String[] getPhaseNames();
+
+    /**
+     * @return number of times each phase has been recorded
+     */
+    long[] getPhaseCounts();
+
+    /**
+     * @return accumulated time spent in each phase in milliseconds, summed up over all threads
+     */
+    double[] getPhaseMillis();
+
+    /**
+     * @return accumulated number of bytes allocated in each phase, -1 if the JVM does not measure allocations
+     */
+    long[] getPhaseAllocatedBytes();
+
+    /**
+     * @return median row latency in milliseconds
+     */
+    double getRowLatencyP50Millis();
+
+    /**
+     * @return 95th percentile of the row latency in milliseconds
+     */
+    double getRowLatencyP95Millis();
+
+    /**
+     * @return 99th percentile of the row latency in milliseconds
+     */
+    double getRowLatencyP99Millis();
+}
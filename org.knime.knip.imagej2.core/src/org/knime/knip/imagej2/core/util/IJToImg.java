@@ -49,15 +49,13 @@
 package org.knime.knip.imagej2.core.util;
 
 import ij.ImagePlus;
-import ij.measure.Measurements;
+import ij.ImageStack;
 import ij.process.ImageProcessor;
-import ij.process.ImageStatistics;
 import net.imagej.ImgPlus;
-import net.imglib2.Cursor;
-import net.imglib2.IterableInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImgFactory;
-import net.imglib2.iterator.IntervalIterator;
 import net.imglib2.ops.img.UnaryObjectFactory;
 import net.imglib2.ops.operation.UnaryOutputOperation;
 import net.imglib2.type.NativeType;
@@ -66,7 +64,6 @@ import net.imglib2.type.numeric.RealType;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
 import net.imglib2.type.numeric.integer.UnsignedShortType;
 import net.imglib2.type.numeric.real.FloatType;
-import net.imglib2.view.Views;
 
 /**
  * This class provides functionality to create an {@link Img} from an {@link ImagePlus}
@@ -80,7 +77,8 @@ public final class IJToImg<T extends RealType<T> & NativeType<T>> implements
         UnaryOutputOperation<ImagePlus, ImgPlus<T>> {
 
     /**
-     * Creates Bit-, UnsignedByte-, UnsignedShort- or FloatType depending on the ImagePlus bit depth.
+     * Creates Bit-, UnsignedByte-, UnsignedShort- or FloatType depending on the ImagePlus bit depth. Only 8-bit images
+     * are read to detect binary images.
      *
      * @param op query {@link ImagePlus} for which the matching type will be determined
      * @return the matching type
@@ -88,11 +86,7 @@ public final class IJToImg<T extends RealType<T> & NativeType<T>> implements
     public static final RealType<?> createMatchingType(final ImagePlus op) {
         switch (op.getBitDepth()) {
             case 8:
-                final ImageStatistics is = op.getStatistics(Measurements.AREA);
-                if ((is.histogram[0] + is.histogram[is.histogram.length - 1]) == is.pixelCount) {
-                    return new BitType();
-                }
-                return new UnsignedByteType();
+                return ImagePlusAnalysis.isBinary(op) ? new BitType() : new UnsignedByteType();
             case 16:
                 return new UnsignedShortType();
             case 32:
@@ -128,50 +122,65 @@ public final class IJToImg<T extends RealType<T> & NativeType<T>> implements
 
     @Override
     public final ImgPlus<T> compute(final ImagePlus op, final ImgPlus<T> r) {
-        final IterableInterval<T> permuted = Views.iterable(ImgToIJ.extendAndPermute(r));
-        final Cursor<T> cur;
-        if (permuted.iterationOrder().equals(r.iterationOrder())) {
-            cur = r.cursor();
-        } else {
-            cur = permuted.cursor();
-        }
+        final RandomAccessibleInterval<T> permuted = ImgToIJ.extendAndPermute(r);
+
+        // min and max are only needed for scaling
+        final ImagePlusAnalysis analysis = m_scale ? ImagePlusAnalysis.analyze(op) : null;
+        final int width = (int)permuted.dimension(0);
+        final int height = (int)permuted.dimension(1);
+        final int numChannels = (int)permuted.dimension(2);
+        final int numSlices = (int)permuted.dimension(3);
+        final int numPlanes = numChannels * numSlices * (int)permuted.dimension(4);
 
-        final ImageStatistics is = op.getStatistics(Measurements.MIN_MAX);
-        final long[] dim = new long[permuted.numDimensions()];
-        permuted.dimensions(dim);
-        final long width = dim[0];
-        final long height = dim[1];
-        int x, y;
-        dim[0] = 1;
-        dim[1] = 1;
-        final IntervalIterator ii = new IntervalIterator(dim);
         final double raMin = r.firstElement().getMinValue();
         final double raMax = r.firstElement().getMaxValue();
-        final double scale = (is.max - is.min) / (raMax - raMin);
-        float v;
-
-        while (ii.hasNext()) {
-            ii.fwd();
-            op.setPosition(ii.getIntPosition(2) + 1, ii.getIntPosition(3) + 1, ii.getIntPosition(4) + 1);
-
-            final ImageProcessor ip = op.getProcessor();
-
-            for (y = 0; y < height; y++) {
-                for (x = 0; x < width; x++) {
-                    cur.fwd();
-                    v = ip.getf(x, y);
-                    if (m_scale) {
-                        cur.get().setReal(((v - is.min) / scale) + raMin);
-                    } else if (v < raMin) {
-                        cur.get().setReal(raMin);
-                    } else if (v > raMax) {
-                        cur.get().setReal(raMax);
-                    } else {
-                        cur.get().setReal(v);
+        final double scale = m_scale ? (analysis.getMax() - analysis.getMin()) / (raMax - raMin) : 1;
+        final double statsMin = m_scale ? analysis.getMin() : 0;
+
+        // the processors are taken from the stack, such that the position of the ImagePlus is never changed
+        final ImageStack stack = op.getStack();
+
+        // virtual stacks read their planes from disk and may not be accessed concurrently
+        final long planeSize = stack.isVirtual() ? 0 : (long)width * height;
+
+        ConversionScheduler.forEachPlaneRange(numPlanes, planeSize, new ConversionScheduler.PlaneRangeTask() {
+
+            @Override
+            public void run(final int from, final int to) {
+                final RandomAccess<T> ra = permuted.randomAccess();
+                int x, y;
+                float v;
+                for (int p = from; p < to; p++) {
+                    final int c = p % numChannels;
+                    final int z = (p / numChannels) % numSlices;
+                    final int t = p / (numChannels * numSlices);
+                    ra.setPosition(c, 2);
+                    ra.setPosition(z, 3);
+                    ra.setPosition(t, 4);
+
+                    final ImageProcessor ip = stack.getProcessor(op.getStackIndex(c + 1, z + 1, t + 1));
+
+                    for (y = 0; y < height; y++) {
+                        ra.setPosition(0, 0);
+                        ra.setPosition(y, 1);
+                        for (x = 0; x < width; x++) {
+                            v = ip.getf(x, y);
+                            if (m_scale) {
+                                ra.get().setReal(((v - statsMin) / scale) + raMin);
+                            } else if (v < raMin) {
+                                ra.get().setReal(raMin);
+                            } else if (v > raMax) {
+                                ra.get().setReal(raMax);
+                            } else {
+                                ra.get().setReal(v);
+                            }
+                            ra.fwd(0);
+                        }
                     }
                 }
             }
-        }
+        });
+
         return r;
     }
 
@@ -0,0 +1,217 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright (C) 2003 - 2013
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * --------------------------------------------------------------------- *
+ *
+ */
+package org.knime.knip.imagej2.core.util;
+
+import ij.ImagePlus;
+import ij.ImageStack;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Result of a single pass over all slices of an {@link ImagePlus}, holding everything {@link IJToImg} needs to know
+ * before the pixels are copied: the matching ImgLib2 type, the minimum and maximum pixel value and whether the image
+ * is binary.
+ */
+public final class ImagePlusAnalysis {
+
+    private final int m_bitDepth;
+
+    private final double m_min;
+
+    private final double m_max;
+
+    private final boolean m_binary;
+
+    private ImagePlusAnalysis(final int bitDepth, final double min, final double max, final boolean binary) {
+        m_bitDepth = bitDepth;
+        m_min = min;
+        m_max = max;
+        m_binary = binary;
+    }
+
+    /**
+     * Reads all slices of the given {@link ImagePlus} once.
+     *
+     * @param imp the {@link ImagePlus} to analyze
+     * @return the analysis
+     */
+    public static ImagePlusAnalysis analyze(final ImagePlus imp) {
+        final int bitDepth = imp.getBitDepth();
+        if (bitDepth != 8 && bitDepth != 16 && bitDepth != 32) {
+            throw new RuntimeException("Unknown ImageJ bit depth.");
+        }
+
+        final ImageStack stack = imp.getStack();
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        boolean binary = bitDepth == 8;
+
+        for (int n = 1; n <= stack.getSize(); n++) {
+            final Object pixels = stack.getPixels(n);
+            if (pixels instanceof byte[]) {
+                int bMin = 255;
+                int bMax = 0;
+                for (final byte b : (byte[])pixels) {
+                    final int v = b & 0xff;
+                    if (v < bMin) {
+                        bMin = v;
+                    }
+                    if (v > bMax) {
+                        bMax = v;
+                    }
+                    if (binary && v != 0 && v != 255) {
+                        binary = false;
+                    }
+                }
+                min = Math.min(min, bMin);
+                max = Math.max(max, bMax);
+            } else if (pixels instanceof short[]) {
+                int sMin = 0xffff;
+                int sMax = 0;
+                for (final short s : (short[])pixels) {
+                    final int v = s & 0xffff;
+                    if (v < sMin) {
+                        sMin = v;
+                    }
+                    if (v > sMax) {
+                        sMax = v;
+                    }
+                }
+                min = Math.min(min, sMin);
+                max = Math.max(max, sMax);
+            } else if (pixels instanceof float[]) {
+                for (final float v : (float[])pixels) {
+                    // NaN is ignored, as in ImageJ statistics
+                    if (v < min) {
+                        min = v;
+                    }
+                    if (v > max) {
+                        max = v;
+                    }
+                }
+            } else {
+                throw new RuntimeException("Unknown ImageJ bit depth.");
+            }
+        }
+
+        if (min > max) {
+            // no pixels at all
+            min = 0;
+            max = 0;
+        }
+
+        return new ImagePlusAnalysis(bitDepth, min, max, binary);
+    }
+
+    /**
+     * Checks whether all pixels of an 8-bit {@link ImagePlus} are either 0 or 255. In contrast to
+     * {@link #analyze(ImagePlus)} the slices are only read until the first non binary pixel is found.
+     *
+     * @param imp the {@link ImagePlus} to check
+     * @return true if the image is 8-bit and all pixels are either 0 or 255
+     */
+    public static boolean isBinary(final ImagePlus imp) {
+        if (imp.getBitDepth() != 8) {
+            return false;
+        }
+
+        final ImageStack stack = imp.getStack();
+        for (int n = 1; n <= stack.getSize(); n++) {
+            for (final byte b : (byte[])stack.getPixels(n)) {
+                if (b != 0 && b != (byte)255) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates Bit-, UnsignedByte-, UnsignedShort- or FloatType depending on the bit depth and the pixel values.
+     *
+     * @return the matching type
+     */
+    public RealType<?> createMatchingType() {
+        switch (m_bitDepth) {
+            case 8:
+                if (m_binary) {
+                    return new BitType();
+                }
+                return new UnsignedByteType();
+            case 16:
+                return new UnsignedShortType();
+            default:
+                return new FloatType();
+        }
+    }
+
+    /**
+     * @return the smallest pixel value over all slices
+     */
+    public double getMin() {
+        return m_min;
+    }
+
+    /**
+     * @return the largest pixel value over all slices
+     */
+    public double getMax() {
+        return m_max;
+    }
+
+    /**
+     * @return true if the image is 8-bit and all pixels are either 0 or 255
+     */
+    public boolean isBinary() {
+        return m_binary;
+    }
+}
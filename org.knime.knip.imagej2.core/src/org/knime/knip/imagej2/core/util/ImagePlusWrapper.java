@@ -0,0 +1,217 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright (C) 2003 - 2013
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * --------------------------------------------------------------------- *
+ *
+ */
+package org.knime.knip.imagej2.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.measure.Calibration;
+import net.imagej.ImgPlus;
+import net.imagej.axis.AxisType;
+import net.imglib2.img.basictypeaccess.array.ByteArray;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.img.basictypeaccess.array.ShortArray;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Fraction;
+
+/**
+ * Wraps the planes of an {@link ImagePlus} into a {@link PlanarImg} without copying the pixels. 8-bit, 16-bit and
+ * 32-bit images are mapped to {@link UnsignedByteType}, {@link UnsignedShortType} and {@link FloatType}. RGB images are
+ * split into three {@link UnsignedByteType} channels, which is the only case where pixels are copied.
+ *
+ * The X and Y axes are always kept, channel, Z and time axes only if they have more than one element or if all axes
+ * are requested. The calibration of the {@link ImagePlus} is transferred to the axes.
+ */
+public final class ImagePlusWrapper {
+
+    private ImagePlusWrapper() {
+        // utility class
+    }
+
+    /**
+     * @param imp the image to wrap, must not be used afterwards as the pixels are shared
+     * @param name name of the created {@link ImgPlus}
+     * @return the wrapped image without the channel, Z and time axes of size one
+     * @throws IllegalArgumentException if the type of the image is not supported
+     */
+    public static ImgPlus<? extends RealType<?>> wrap(final ImagePlus imp, final String name) {
+        return wrap(imp, name, false);
+    }
+
+    /**
+     * @param imp the image to wrap, must not be used afterwards as the pixels are shared
+     * @param name name of the created {@link ImgPlus}
+     * @param allAxes if true, the image has always the five axes of ImageJ (XYCZT), otherwise channel, Z and time
+     *            axes are only kept if they have more than one element
+     * @return the wrapped image
+     * @throws IllegalArgumentException if the type of the image is not supported
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static ImgPlus<? extends RealType<?>> wrap(final ImagePlus imp, final String name,
+                                                      final boolean allAxes) {
+        final ImageStack stack = imp.getStack();
+        final boolean rgb = imp.getType() == ImagePlus.COLOR_RGB;
+
+        // ImageJ dimensions are ordered XYCZT, as are the planes of the stack
+        final int[] ijDims = imp.getDimensions();
+        if (rgb) {
+            ijDims[2] *= 3;
+        }
+        final double[] ijCal = getCalibration(imp.getCalibration());
+        final String[] ijUnits = getUnits(imp.getCalibration());
+
+        int numDims = 2;
+        for (int d = 2; d < ijDims.length; d++) {
+            if (allAxes || ijDims[d] > 1) {
+                numDims++;
+            }
+        }
+        final long[] dims = new long[numDims];
+        final AxisType[] axes = new AxisType[numDims];
+        final double[] cal = new double[numDims];
+        final String[] units = new String[numDims];
+        for (int d = 0, i = 0; d < ijDims.length; d++) {
+            if (d < 2 || allAxes || ijDims[d] > 1) {
+                dims[i] = ijDims[d];
+                axes[i] = ImgToIJ.DEFAULT_ORDER[d];
+                cal[i] = ijCal[d];
+                units[i] = ijUnits[d];
+                i++;
+            }
+        }
+
+        final PlanarImg img;
+        switch (imp.getBitDepth()) {
+            case 8: {
+                final List<ByteArray> planes = new ArrayList<>(stack.getSize());
+                for (int n = 1; n <= stack.getSize(); n++) {
+                    planes.add(new ByteArray((byte[])stack.getPixels(n)));
+                }
+                img = new PlanarImg<UnsignedByteType, ByteArray>(planes, dims, new Fraction());
+                img.setLinkedType(new UnsignedByteType(img));
+                break;
+            }
+            case 16: {
+                final List<ShortArray> planes = new ArrayList<>(stack.getSize());
+                for (int n = 1; n <= stack.getSize(); n++) {
+                    planes.add(new ShortArray((short[])stack.getPixels(n)));
+                }
+                img = new PlanarImg<UnsignedShortType, ShortArray>(planes, dims, new Fraction());
+                img.setLinkedType(new UnsignedShortType(img));
+                break;
+            }
+            case 24: {
+                final List<ByteArray> planes = new ArrayList<>(3 * stack.getSize());
+                for (int n = 1; n <= stack.getSize(); n++) {
+                    splitRGB((int[])stack.getPixels(n), planes);
+                }
+                img = new PlanarImg<UnsignedByteType, ByteArray>(planes, dims, new Fraction());
+                img.setLinkedType(new UnsignedByteType(img));
+                break;
+            }
+            case 32: {
+                final List<FloatArray> planes = new ArrayList<>(stack.getSize());
+                for (int n = 1; n <= stack.getSize(); n++) {
+                    planes.add(new FloatArray((float[])stack.getPixels(n)));
+                }
+                img = new PlanarImg<FloatType, FloatArray>(planes, dims, new Fraction());
+                img.setLinkedType(new FloatType(img));
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported ImageJ bit depth: " + imp.getBitDepth());
+        }
+
+        final ImgPlus res = new ImgPlus(img, name, axes, cal);
+        for (int d = 0; d < numDims; d++) {
+            res.axis(d).setUnit(units[d]);
+        }
+        return res;
+    }
+
+    /**
+     * Adds the red, green and blue plane of the given RGB pixels.
+     */
+    private static void splitRGB(final int[] pixels, final List<ByteArray> planes) {
+        final byte[] r = new byte[pixels.length];
+        final byte[] g = new byte[pixels.length];
+        final byte[] b = new byte[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            final int c = pixels[i];
+            r[i] = (byte)(c >> 16);
+            g[i] = (byte)(c >> 8);
+            b[i] = (byte)c;
+        }
+        planes.add(new ByteArray(r));
+        planes.add(new ByteArray(g));
+        planes.add(new ByteArray(b));
+    }
+
+    /**
+     * @return the scale of the XYCZT axes
+     */
+    private static double[] getCalibration(final Calibration cal) {
+        // the frame interval is 0 if it isn't known
+        final double frameInterval = cal.frameInterval > 0 ? cal.frameInterval : 1;
+        return new double[]{cal.pixelWidth, cal.pixelHeight, 1, cal.pixelDepth, frameInterval};
+    }
+
+    /**
+     * @return the units of the XYCZT axes
+     */
+    private static String[] getUnits(final Calibration cal) {
+        return new String[]{cal.getUnit(), cal.getUnit(), null, cal.getUnit(), cal.getTimeUnit()};
+    }
+}
@@ -53,14 +53,10 @@ import ij.ImageStack;
 import ij.measure.Calibration;
 import ij.process.ImageProcessor;
 
-import java.util.ArrayList;
+import java.lang.reflect.Array;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
 import net.imagej.ImgPlus;
 import net.imagej.axis.Axes;
@@ -72,15 +68,17 @@ import net.imglib2.IterableRealInterval;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.converter.Converter;
 import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.planar.PlanarImg;
 import net.imglib2.iterator.IntervalIterator;
 import net.imglib2.ops.operation.UnaryOperation;
 import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
 import net.imglib2.type.numeric.real.FloatType;
 import net.imglib2.view.Views;
 
-import org.knime.core.node.KNIMEConstants;
-import org.knime.knip.base.KNIPConstants;
-import org.knime.knip.core.ThreadPoolExecutorService;
 import org.knime.knip.core.ops.metadata.DimSwapper;
 
 /**
@@ -118,12 +116,32 @@ public final class ImgToIJ {
     }
 
     /**
-     * Wraps an {@link Img} using default IJ1Converter.
+     * Wraps an {@link Img} using default IJ1Converter. The resulting {@link ImagePlus} never shares pixel data with
+     * the given {@link Img}.
      *
      * @param img to be wrapped
      * @return wrapped {@link ImagePlus}
      */
     public static final <T extends RealType<T>> ImagePlus wrap(final ImgPlus<T> img) {
+        return wrap(img, false);
+    }
+
+    /**
+     * Wraps an {@link Img} using default IJ1Converter. If the {@link Img} is a {@link PlanarImg} or {@link ArrayImg}
+     * of {@link UnsignedByteType}, {@link UnsignedShortType} or {@link FloatType} and its axes are already in ImageJ1
+     * order, the primitive planes are passed to the {@link ImageStack} directly instead of being converted pixel by
+     * pixel.
+     *
+     * @param img to be wrapped
+     * @param shareData if true, the planes of the {@link Img} are used as {@link ImageStack} slices without copying,
+     *            i.e. changes made in ImageJ1 are visible in the {@link Img}. Otherwise the planes are copied.
+     * @return wrapped {@link ImagePlus}
+     */
+    public static final <T extends RealType<T>> ImagePlus wrap(final ImgPlus<T> img, final boolean shareData) {
+        final ImageStack direct = createDirectStack(img, shareData);
+        if (direct != null) {
+            return createImagePlus(img, direct);
+        }
         return wrap(img, new DefaultProcessorFactory(), new DefaultImgToIJ1Converter<T>(img.firstElement()));
     }
 
@@ -144,7 +162,6 @@ public final class ImgToIJ {
         final int width = (int)permuted.dimension(0);
         final int height = (int)permuted.dimension(1);
 
-        final ImagePlus r = new ImagePlus();
         final ImageStack is = new ImageStack(width, height);
 
         final RandomAccessibleInterval<T> access =
@@ -152,78 +169,78 @@ public final class ImgToIJ {
 
         final IntervalIterator ii = createIntervalIterator(access);
 
-        final long[] min = new long[access.numDimensions()];
-        final long[] max = new long[access.numDimensions()];
-
-        max[0] = permuted.max(0);
-        max[1] = permuted.max(1);
-
         // number of planes = num tasks
         int numSlices = 1;
         for (int d = 2; d < access.numDimensions(); d++) {
             numSlices *= access.dimension(d);
         }
 
-        // parallelization
-        final ImageProcessor[] slices = new ImageProcessor[numSlices];
-        final ExecutorService service =
-                new ThreadPoolExecutorService(
-                        KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(KNIPConstants.THREADS_PER_NODE));
-
-        final ArrayList<Future<Void>> futures = new ArrayList<Future<Void>>();
-        final T inType = img.firstElement();
-
+        // collect the position of each plane
+        final long[][] planeMin = new long[numSlices][];
         int i = 0;
         while (ii.hasNext()) {
             ii.fwd();
-
+            final long[] min = new long[access.numDimensions()];
             for (int d = 2; d < ii.numDimensions(); d++) {
                 min[d] = ii.getIntPosition(d);
-                max[d] = min[d];
             }
+            planeMin[i++] = min;
+        }
 
-            final int proxy = i++;
+        // parallelization
+        final ImageProcessor[] slices = new ImageProcessor[numSlices];
+        final T inType = img.firstElement();
 
-            futures.add(service.submit(new Callable<Void>() {
+        ConversionScheduler.forEachPlaneRange(numSlices, (long)width * height,
+                                              new ConversionScheduler.PlaneRangeTask() {
 
-                final FinalInterval tmp = new FinalInterval(min, max);
+            @Override
+            public void run(final int from, final int to) {
+                final FloatType outProxy = new FloatType();
+                final long[] max = new long[access.numDimensions()];
+                max[0] = permuted.max(0);
+                max[1] = permuted.max(1);
 
-                @Override
-                public Void call() throws Exception {
+                for (int s = from; s < to; s++) {
+                    for (int d = 2; d < max.length; d++) {
+                        max[d] = planeMin[s][d];
+                    }
 
-                    final Cursor<T> cursor = Views.iterable(Views.interval(access, tmp)).cursor();
+                    final Cursor<T> cursor =
+                            Views.iterable(Views.interval(access, new FinalInterval(planeMin[s], max))).cursor();
 
                     final ImageProcessor ip = processorFactory.createProcessor(width, height, inType);
 
-                    final FloatType outProxy = new FloatType();
                     for (int y = 0; y < height; y++) {
                         for (int x = 0; x < width; x++) {
                             converter.convert(cursor.next(), outProxy);
                             ip.setf(x, y, outProxy.get());
                         }
                     }
-                    slices[proxy] = ip;
-
-                    return null;
+                    slices[s] = ip;
                 }
-            }));
-        }
-
-        for (final Future<Void> f : futures) {
-            try {
-                f.get();
-            } catch (final InterruptedException e) {
-                e.printStackTrace();
-            } catch (final ExecutionException e) {
-                e.printStackTrace();
             }
-        }
+        });
 
         // add slices to stack
         for (ImageProcessor slice : slices) {
             is.addSlice("", slice);
         }
 
+        return createImagePlus(img, is);
+    }
+
+    /**
+     * Creates the {@link ImagePlus} holding the given stack and sets calibration and title from the {@link ImgPlus}.
+     *
+     * @param img the source {@link ImgPlus}
+     * @param is the stack containing all planes in ImageJ1 order
+     * @return the {@link ImagePlus}
+     */
+    private static ImagePlus createImagePlus(final ImgPlus<?> img, final ImageStack is) {
+        final RandomAccessibleInterval<?> permuted = extendAndPermute(img);
+        final ImagePlus r = new ImagePlus();
+
         // set calibration
         final double[] newCalibration = getNewCalibration(img);
         Calibration cal = new Calibration();
@@ -239,6 +256,114 @@ public final class ImgToIJ {
         return r;
     }
 
+    /**
+     * Creates an {@link ImageStack} directly from the primitive storage of the given {@link ImgPlus}, if possible.
+     *
+     * @param img the {@link ImgPlus} to wrap
+     * @param shareData if true the storage arrays are reused, otherwise they are copied plane-wise
+     * @return the {@link ImageStack} or <code>null</code> if type or layout of the {@link Img} can't be passed to
+     *         ImageJ1 directly
+     */
+    @SuppressWarnings("rawtypes")
+    private static ImageStack createDirectStack(final ImgPlus<?> img, final boolean shareData) {
+        if (img.numDimensions() < 2 || !isIJ1Ordered(img)) {
+            return null;
+        }
+
+        final Object type = img.firstElement();
+        final Class<?> arrayType;
+        if (type.getClass() == UnsignedByteType.class) {
+            arrayType = byte[].class;
+        } else if (type.getClass() == UnsignedShortType.class) {
+            arrayType = short[].class;
+        } else if (type.getClass() == FloatType.class) {
+            arrayType = float[].class;
+        } else {
+            return null;
+        }
+
+        Img<?> inner = img.getImg();
+        while (inner instanceof ImgPlus) {
+            inner = ((ImgPlus<?>)inner).getImg();
+        }
+
+        final int width = (int)img.dimension(0);
+        final int height = (int)img.dimension(1);
+        final int planeSize = width * height;
+        final ImageStack is = new ImageStack(width, height);
+
+        if (inner instanceof PlanarImg) {
+            final PlanarImg planar = (PlanarImg)inner;
+            final Object[] planes = new Object[planar.numSlices()];
+            for (int i = 0; i < planes.length; i++) {
+                final Object access = planar.getPlane(i);
+                if (!(access instanceof ArrayDataAccess)) {
+                    return null;
+                }
+                final Object storage = ((ArrayDataAccess)access).getCurrentStorageArray();
+                if (storage.getClass() != arrayType || Array.getLength(storage) != planeSize) {
+                    return null;
+                }
+                planes[i] = storage;
+            }
+            for (final Object storage : planes) {
+                is.addSlice("", shareData ? storage : extractPlane(storage, 0, planeSize));
+            }
+        } else if (inner instanceof ArrayImg) {
+            final Object access = ((ArrayImg)inner).update(null);
+            if (!(access instanceof ArrayDataAccess)) {
+                return null;
+            }
+            final Object storage = ((ArrayDataAccess)access).getCurrentStorageArray();
+            if (storage.getClass() != arrayType) {
+                return null;
+            }
+            final int numPlanes = Array.getLength(storage) / planeSize;
+            if (numPlanes == 1 && shareData) {
+                is.addSlice("", storage);
+            } else {
+                for (int i = 0; i < numPlanes; i++) {
+                    is.addSlice("", extractPlane(storage, i * planeSize, planeSize));
+                }
+            }
+        } else {
+            return null;
+        }
+
+        return is;
+    }
+
+    /**
+     * @param storage primitive storage array
+     * @param offset index of the first element of the plane
+     * @param planeSize number of elements of the plane
+     * @return a new primitive array holding the copied plane
+     */
+    private static Object extractPlane(final Object storage, final int offset, final int planeSize) {
+        final Object plane = Array.newInstance(storage.getClass().getComponentType(), planeSize);
+        System.arraycopy(storage, offset, plane, 0, planeSize);
+        return plane;
+    }
+
+    /**
+     * Checks whether the first two axes of the given {@link ImgPlus} are X and Y and all remaining axes are sorted
+     * according to {@link #DEFAULT_ORDER}, i.e. the planes of the {@link Img} are already in ImageJ1 stack order.
+     *
+     * @param img the {@link ImgPlus} to check
+     * @return true if no permutation is needed
+     */
+    private static boolean isIJ1Ordered(final ImgPlus<?> img) {
+        int last = -1;
+        for (int d = 0; d < img.numDimensions(); d++) {
+            final Integer idx = DEFAULT_IJ1_MAPPING.get(img.axis(d).type());
+            if (idx == null || idx <= last || (d < 2 && idx != d)) {
+                return false;
+            }
+            last = idx;
+        }
+        return true;
+    }
+
     /**
      * @param permuted
      * @return